@@ -0,0 +1,105 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.benchmarks;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.EnumEspecialidad;
+import com.mycompany.appclinica.Models.EnumEstadoCita;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import com.mycompany.appclinica.Services.GeneradorIdCitas;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la agenda de un solo médico muy ocupado: vincular todas sus citas como
+ * al cargar el archivo, recorrerlas y quitar y volver a agregar una cita. No
+ * usa archivos.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class AgendaMedicoBenchmark {
+
+    @Param({"5000", "50000"})
+    public int citas;
+
+    private Medico medico;
+    private List<Cita> agenda;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void generarAgenda() {
+        medico = new Medico(DatosSinteticos.cedulaMedico(0), "Laura", "Gómez", EnumEspecialidad.values()[0], "3001234567");
+        Paciente paciente = new Paciente(DatosSinteticos.cedulaPaciente(0), "Carlos", "Pérez", "3007654321",
+                LocalDate.of(1990, 1, 1));
+        agenda = new ArrayList<>(citas);
+        for (int i = 0; i < citas; i++) {
+            // Constructor de persistencia: no vincula la cita, igual que al leer el archivo
+            Cita cita = new Cita(GeneradorIdCitas.formatear(i + 1), paciente, medico, "Consulta general",
+                    EnumEstadoCita.PENDIENTE, DatosSinteticos.franja(i));
+            agenda.add(cita);
+            medico.agregarCita(cita);
+        }
+    }
+
+    /**
+     * Vincula todas las citas a un médico nuevo, como hace el DAO al cargar.
+     */
+    @Benchmark
+    public Medico vincularCitas() {
+        Medico nuevo = new Medico(medico.getCedula(), medico.getNombre(), medico.getApellido(),
+                medico.getEspecialidad(), medico.getTelefono());
+        for (Cita cita : agenda) {
+            nuevo.agregarCita(cita);
+        }
+        return nuevo;
+    }
+
+    /**
+     * Recorre la agenda completa, como al contar las citas pendientes.
+     */
+    @Benchmark
+    public int recorrerCitas() {
+        int pendientes = 0;
+        for (Cita cita : medico.getCitasVista()) {
+            if (cita.getEstado() == EnumEstadoCita.PENDIENTE) {
+                pendientes++;
+            }
+        }
+        return pendientes;
+    }
+
+    /**
+     * Quita una cita de la agenda y la vuelve a agregar, como al cambiar el
+     * médico de una cita.
+     */
+    @Benchmark
+    public boolean reasignarCita() {
+        Cita cita = agenda.get(siguiente++ % agenda.size());
+        boolean quitada = medico.eliminarCita(cita);
+        medico.agregarCita(cita);
+        return quitada;
+    }
+}
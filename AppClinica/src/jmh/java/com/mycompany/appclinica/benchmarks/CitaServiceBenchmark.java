@@ -0,0 +1,152 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.benchmarks;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.EnumEstadoCita;
+import com.mycompany.appclinica.Models.EnumResultadoAgenda;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import com.mycompany.appclinica.Services.CitaService;
+import com.mycompany.appclinica.Services.MedicoService;
+import com.mycompany.appclinica.Services.PacienteService;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide las operaciones más usadas de {@link CitaService} sobre una agenda ya
+ * cargada: agendar una cita o un lote (incluida la verificación de
+ * conflictos) y las búsquedas por paciente y por rango de fechas.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dappclinica.datos.dir=target/jmh-datos", "-Dappclinica.fsync=NUNCA",
+        "-Dappclinica.citas.bitacora.fsync=NUNCA"})
+public class CitaServiceBenchmark {
+
+    private static final int TAMANIO_LOTE = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    public int filas;
+
+    private PacienteService pacienteService;
+    private MedicoService medicoService;
+    private CitaService citaService;
+    private List<Paciente> pacientes;
+    private List<Medico> medicos;
+    private List<Cita> citasActivas;
+    private int franjasOcupadas;
+    private int siguiente;
+    private PrintStream errOriginal;
+
+    @Setup(Level.Trial)
+    public void generarDatos() throws IOException {
+        DatosSinteticos.generar(Math.max(filas / 10, 1), Math.max(filas / 100, 1), filas);
+        pacienteService = new PacienteService();
+        medicoService = new MedicoService();
+        citaService = new CitaService(pacienteService, medicoService);
+        pacientes = pacienteService.listarTodos();
+        medicos = medicoService.listarTodos();
+        // Una franja con una cita cancelada acepta la reserva: solo estas garantizan el conflicto
+        citasActivas = new ArrayList<>();
+        for (Cita cita : citaService.listarTodas()) {
+            if (cita.getEstado() != EnumEstadoCita.CANCELADA) {
+                citasActivas.add(cita);
+            }
+        }
+        franjasOcupadas = (filas + medicos.size() - 1) / medicos.size();
+        // Los rechazos por conflicto se informan por System.err; no se mide esa escritura
+        errOriginal = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        citaService.vaciarPendientes(60_000);
+        System.setErr(errOriginal);
+    }
+
+    /**
+     * Agenda una cita en una franja libre, después de las ya ocupadas.
+     */
+    @Benchmark
+    public boolean agendarCita() {
+        int n = siguiente++;
+        Medico medico = medicos.get(n % medicos.size());
+        Paciente paciente = pacientes.get(n % pacientes.size());
+        LocalDateTime fecha = DatosSinteticos.franja(franjasOcupadas + n / medicos.size());
+        return citaService.agendarCita(new Cita(paciente, medico, "Consulta general", fecha));
+    }
+
+    /**
+     * Intenta agendar en la franja de una cita no cancelada, así que siempre
+     * se rechaza por conflicto.
+     */
+    @Benchmark
+    public boolean agendarCitaConConflicto() {
+        int n = siguiente++;
+        Cita ocupada = citasActivas.get(n % citasActivas.size());
+        Paciente paciente = pacientes.get(n % pacientes.size());
+        // Constructor sin vínculo con las listas del paciente y el médico, para no acumular citas rechazadas
+        return citaService.agendarCita(new Cita(null, paciente, ocupada.getMedico(), "Consulta general",
+                EnumEstadoCita.PENDIENTE, ocupada.getFecha()));
+    }
+
+    /**
+     * Agenda un lote de {@value #TAMANIO_LOTE} citas en franjas libres con una
+     * sola llamada; comparar con {@value #TAMANIO_LOTE} veces
+     * {@link #agendarCita()}.
+     */
+    @Benchmark
+    public List<EnumResultadoAgenda> agendarLote() {
+        List<Cita> lote = new ArrayList<>(TAMANIO_LOTE);
+        for (int i = 0; i < TAMANIO_LOTE; i++) {
+            int n = siguiente++;
+            Medico medico = medicos.get(n % medicos.size());
+            Paciente paciente = pacientes.get(n % pacientes.size());
+            LocalDateTime fecha = DatosSinteticos.franja(franjasOcupadas + n / medicos.size());
+            lote.add(new Cita(paciente, medico, "Consulta general", fecha));
+        }
+        return citaService.agendarCitas(lote);
+    }
+
+    @Benchmark
+    public List<Cita> buscarPorPaciente() {
+        return citaService.buscarPorPaciente(pacientes.get(siguiente++ % pacientes.size()).getCedula());
+    }
+
+    /**
+     * Busca las citas de una semana de la agenda.
+     */
+    @Benchmark
+    public List<Cita> buscarPorRangoFechas() {
+        int dias = Math.max(franjasOcupadas / DatosSinteticos.FRANJAS_POR_DIA - 7, 1);
+        LocalDateTime inicio = DatosSinteticos.INICIO_AGENDA.plusDays(siguiente++ % dias).atStartOfDay();
+        return citaService.buscarPorRangoFechas(inicio, inicio.plusDays(7));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.benchmarks;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import com.mycompany.appclinica.Persistence.CitaTxtDAO;
+import com.mycompany.appclinica.Services.MedicoService;
+import com.mycompany.appclinica.Services.PacienteService;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la carga y el guardado del archivo de citas. Hay 10 citas por
+ * paciente y 100 por médico.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dappclinica.datos.dir=target/jmh-datos", "-Dappclinica.fsync=NUNCA",
+        "-Dappclinica.citas.bitacora.fsync=NUNCA"})
+public class CitaTxtDAOBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int filas;
+
+    private PacienteService pacienteService;
+    private MedicoService medicoService;
+    private CitaTxtDAO dao;
+    private List<Cita> citas;
+
+    @Setup(Level.Trial)
+    public void generarDatos() throws IOException {
+        DatosSinteticos.generar(Math.max(filas / 10, 1), Math.max(filas / 100, 1), filas);
+        pacienteService = new PacienteService();
+        medicoService = new MedicoService();
+        dao = new CitaTxtDAO(pacienteService, medicoService);
+        citas = dao.cargar();
+    }
+
+    /**
+     * Estado de los benchmarks de carga. Cada carga vuelve a vincular las
+     * citas con pacientes y médicos, así que antes de cada invocación se
+     * vacían las listas para medir lo mismo que al iniciar la aplicación.
+     * Está aparte para que {@link #guardar()} no pague esa preparación; como
+     * una carga tarda milisegundos, el costo fijo de preparar cada invocación
+     * no pesa en la medición.
+     */
+    @State(Scope.Benchmark)
+    public static class CitasDesvinculadas {
+
+        @Setup(Level.Invocation)
+        public void desvincularCitas(CitaTxtDAOBenchmark datos) {
+            for (Paciente paciente : datos.pacienteService.listarTodos()) {
+                for (Cita cita : paciente.getCitas()) {
+                    paciente.eliminarCita(cita);
+                }
+            }
+            for (Medico medico : datos.medicoService.listarTodos()) {
+                for (Cita cita : medico.getCitas()) {
+                    medico.eliminarCita(cita);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Cita> cargar(CitasDesvinculadas desvinculadas) throws IOException {
+        return dao.cargar(1);
+    }
+
+    @Benchmark
+    public List<Cita> cargarParalelo(CitasDesvinculadas desvinculadas) throws IOException {
+        return dao.cargar(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public void guardar() throws IOException {
+        dao.guardar(citas);
+    }
+}
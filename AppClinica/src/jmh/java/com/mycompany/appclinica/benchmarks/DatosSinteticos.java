@@ -0,0 +1,118 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.benchmarks;
+
+import com.mycompany.appclinica.Models.EnumEspecialidad;
+import com.mycompany.appclinica.Models.EnumEstadoCita;
+import com.mycompany.appclinica.Persistence.ConfiguracionPersistencia;
+import com.mycompany.appclinica.Services.GeneradorIdCitas;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Generador de archivos de datos sintéticos para los benchmarks. Escribe
+ * pacientes.txt, medicos.txt y citas.txt en la carpeta configurada con
+ * {@code appclinica.datos.dir}, con el mismo formato que usa la aplicación.
+ *
+ * Los datos son reproducibles (semilla fija). Las citas se reparten entre los
+ * médicos en franjas de 30 minutos de 8:00 a 16:00 a partir de
+ * {@link #INICIO_AGENDA} (mañana, para que se puedan agendar citas nuevas
+ * después de ellas), sin conflictos de horario.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+final class DatosSinteticos {
+
+    static final LocalDate INICIO_AGENDA = LocalDate.now().plusDays(1);
+    static final int FRANJAS_POR_DIA = 16;
+
+    private static final String[] NOMBRES = {"Ana", "Carlos", "María", "José", "Laura", "Andrés", "Sofía",
+        "Juan", "Valentina", "Diego", "Camila", "Luis", "Daniela", "Jorge", "Paula", "Miguel"};
+    private static final String[] APELLIDOS = {"Gómez", "Rodríguez", "Martínez", "López", "García", "Pérez",
+        "Sánchez", "Ramírez", "Torres", "Díaz", "Moreno", "Castaño", "Ospina", "Rojas", "Vargas", "Muñoz"};
+    private static final String[] MOTIVOS = {"Consulta general", "Control prenatal", "Dolor de cabeza",
+        "Revisión de exámenes", "Chequeo anual", "Control de presión arterial", "Vacunación", "Seguimiento"};
+
+    private DatosSinteticos() {
+    }
+
+    /**
+     * Genera un juego de datos completo, reemplazando los archivos anteriores.
+     *
+     * @param pacientes Cantidad de pacientes
+     * @param medicos Cantidad de médicos
+     * @param citas Cantidad de citas
+     * @throws IOException si ocurre un error de escritura
+     */
+    static void generar(int pacientes, int medicos, int citas) throws IOException {
+        File dir = new File(ConfiguracionPersistencia.DIRECTORIO_DATOS);
+        dir.mkdirs();
+        for (String nombre : new String[]{"citas_bitacora.txt", "citas_bitacora_sellada.txt", "citas_secuencia.txt",
+            "pacientes.bin", "medicos.bin", "citas.bin"}) {
+            new File(dir, nombre).delete();
+        }
+        Random random = new Random(42);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(new File(dir, "pacientes.txt").toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < pacientes; i++) {
+                LocalDate nacimiento = LocalDate.of(1940, 1, 1).plusDays(random.nextInt(365 * 80));
+                writer.write(cedulaPaciente(i) + "," + elegir(random, NOMBRES) + "," + elegir(random, APELLIDOS)
+                        + "," + telefono(random) + "," + nacimiento);
+                writer.newLine();
+            }
+        }
+
+        EnumEspecialidad[] especialidades = EnumEspecialidad.values();
+        try (BufferedWriter writer = Files.newBufferedWriter(new File(dir, "medicos.txt").toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < medicos; i++) {
+                writer.write(cedulaMedico(i) + "," + elegir(random, NOMBRES) + "," + elegir(random, APELLIDOS)
+                        + "," + especialidades[i % especialidades.length].name() + "," + telefono(random));
+                writer.newLine();
+            }
+        }
+
+        EnumEstadoCita[] estados = EnumEstadoCita.values();
+        try (BufferedWriter writer = Files.newBufferedWriter(new File(dir, "citas.txt").toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < citas; i++) {
+                writer.write(GeneradorIdCitas.formatear(i + 1) + "," + cedulaPaciente(random.nextInt(pacientes))
+                        + "," + cedulaMedico(i % medicos) + "," + franja(i / medicos) + "," + elegir(random, MOTIVOS)
+                        + "," + estados[random.nextInt(estados.length)].name());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Fecha y hora de la franja número {@code n} de la agenda de un médico.
+     *
+     * @param n Número de franja (0 es la primera)
+     * @return Fecha y hora de la franja
+     */
+    static LocalDateTime franja(int n) {
+        return INICIO_AGENDA.plusDays(n / FRANJAS_POR_DIA).atTime(8, 0).plusMinutes(30L * (n % FRANJAS_POR_DIA));
+    }
+
+    static String cedulaPaciente(int i) {
+        return Integer.toString(1_000_000_000 + i);
+    }
+
+    static String cedulaMedico(int i) {
+        return Integer.toString(80_000_000 + i);
+    }
+
+    private static String telefono(Random random) {
+        return "3" + (100_000_000 + random.nextInt(900_000_000));
+    }
+
+    private static String elegir(Random random, String[] opciones) {
+        return opciones[random.nextInt(opciones.length)];
+    }
+}
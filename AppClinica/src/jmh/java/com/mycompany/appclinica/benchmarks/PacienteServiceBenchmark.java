@@ -0,0 +1,57 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.benchmarks;
+
+import com.mycompany.appclinica.Models.Paciente;
+import com.mycompany.appclinica.Services.PacienteService;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la búsqueda de pacientes por nombre o apellido con términos parciales
+ * de distinta selectividad.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dappclinica.datos.dir=target/jmh-datos", "-Dappclinica.fsync=NUNCA"})
+public class PacienteServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int filas;
+
+    @Param({"an", "gómez", "valentina", "xyz"})
+    public String texto;
+
+    private PacienteService pacienteService;
+
+    @Setup(Level.Trial)
+    public void generarDatos() throws IOException {
+        DatosSinteticos.generar(filas, 1, 0);
+        pacienteService = new PacienteService();
+    }
+
+    @Benchmark
+    public List<Paciente> buscarPorNombre() {
+        return pacienteService.buscarPorNombre(texto);
+    }
+}
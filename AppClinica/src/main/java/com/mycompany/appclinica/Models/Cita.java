@@ -17,17 +17,30 @@ import java.time.format.DateTimeFormatter;
  */
 public class Cita {
 
-    private static int contadorCitas = 1; // Contador estático para generar IDs secuenciales
-
     private String id;
     private Paciente paciente;
     private Medico medico;
     private String motivo;
     private EnumEstadoCita estado;
     private LocalDateTime fecha;
+    private ObservadorEstado observadorEstado;
+    private SerieCitas serie;
+
+    /**
+     * Recibe un aviso cada vez que cambia el estado de la cita, sin importar
+     * el método que lo cambió. Lo usa CitaService para mantener sus índices.
+     */
+    public interface ObservadorEstado {
+
+        /**
+         * @param cita Cita que cambió de estado
+         * @param estadoAnterior Estado que tenía antes del cambio
+         */
+        void estadoCambiado(Cita cita, EnumEstadoCita estadoAnterior);
+    }
 
     /**
-     * Constructor completo de Cita con ID autogenerado.
+     * Constructor completo de Cita. El ID lo asigna CitaService al agendarla.
      *
      * @param paciente Paciente que solicita la cita
      * @param medico Médico que atenderá la cita
@@ -68,33 +81,6 @@ public class Cita {
         this.motivo = motivo;
         this.estado = estado;
         this.fecha = fecha;
-
-        // Actualizar el contador si el ID es numérico y mayor al actual
-        try {
-            int idNumerico = Integer.parseInt(id.replace("CITA-", ""));
-            if (idNumerico >= contadorCitas) {
-                contadorCitas = idNumerico + 1;
-            }
-        } catch (NumberFormatException e) {
-            // ID no es del formato esperado, no actualizar contador
-        }
-    }
-
-    /**
-     * Método estático para reiniciar el contador (útil para testing o limpieza
-     * de datos)
-     */
-    public static void reiniciarContador() {
-        contadorCitas = 1;
-    }
-
-    /**
-     * Método estático para establecer el contador en un valor específico
-     *
-     * @param valor Nuevo valor del contador
-     */
-    public static void setContador(int valor) {
-        contadorCitas = valor;
     }
 
     /**
@@ -126,7 +112,7 @@ public class Cita {
      */
     public boolean confirmar() {
         if (this.estado == EnumEstadoCita.PENDIENTE) {
-            this.estado = EnumEstadoCita.CONFIRMADA;
+            cambiarEstado(EnumEstadoCita.CONFIRMADA);
             return true;
         }
         return false;
@@ -139,7 +125,7 @@ public class Cita {
      */
     public boolean cancelar() {
         if (this.estado != EnumEstadoCita.COMPLETADA) {
-            this.estado = EnumEstadoCita.CANCELADA;
+            cambiarEstado(EnumEstadoCita.CANCELADA);
             return true;
         }
         return false;
@@ -152,7 +138,7 @@ public class Cita {
      */
     public boolean completar() {
         if (this.estado == EnumEstadoCita.CONFIRMADA) {
-            this.estado = EnumEstadoCita.COMPLETADA;
+            cambiarEstado(EnumEstadoCita.COMPLETADA);
             return true;
         }
         return false;
@@ -163,7 +149,20 @@ public class Cita {
      */
     public void marcarNoAsistio() {
         if (this.estado == EnumEstadoCita.CONFIRMADA || this.estado == EnumEstadoCita.PENDIENTE) {
-            this.estado = EnumEstadoCita.NO_ASISTIO;
+            cambiarEstado(EnumEstadoCita.NO_ASISTIO);
+        }
+    }
+
+    /**
+     * Cambia el estado y avisa al observador si el estado es distinto.
+     *
+     * @param nuevo Nuevo estado
+     */
+    private void cambiarEstado(EnumEstadoCita nuevo) {
+        EnumEstadoCita anterior = this.estado;
+        this.estado = nuevo;
+        if (anterior != nuevo && observadorEstado != null) {
+            observadorEstado.estadoCambiado(this, anterior);
         }
     }
 
@@ -206,11 +205,21 @@ public class Cita {
     }
     
     /**
-    * Establece el ID de la cita.
+    * Establece el ID de la cita. Como el paciente y el médico guardan sus
+    * citas en conjuntos basados en el ID, la cita se vuelve a registrar en
+    * ellos con el ID nuevo.
     * @param id Nuevo ID a asignar
     */
     public void setId(String id) {
+        boolean enPaciente = paciente != null && paciente.eliminarCita(this);
+        boolean enMedico = medico != null && medico.eliminarCita(this);
         this.id = id;
+        if (enPaciente) {
+            paciente.agregarCita(this);
+        }
+        if (enMedico) {
+            medico.agregarCita(this);
+        }
     }
        
      /**
@@ -268,7 +277,30 @@ public class Cita {
      * @param estado Nuevo estado a asignar
      */
     public void setEstado(EnumEstadoCita estado) {
-        this.estado = estado;
+        cambiarEstado(estado);
+    }
+    /**
+     * Establece quién recibe los avisos de cambio de estado.
+     * @param observadorEstado Observador a avisar, o null para ninguno
+     */
+    public void setObservadorEstado(ObservadorEstado observadorEstado) {
+        this.observadorEstado = observadorEstado;
+    }
+    /**
+     * Obtiene la serie que genera esta cita mientras no tenga un registro
+     * propio en el archivo de citas.
+     * @return Serie de origen, o null si la cita se guarda por sí sola
+     */
+    public SerieCitas getSerie() {
+        return serie;
+    }
+    /**
+     * Establece la serie que genera esta cita.
+     * @param serie Serie de origen, o null cuando la cita pasa a guardarse
+     * por sí sola
+     */
+    public void setSerie(SerieCitas serie) {
+        this.serie = serie;
     }
     /**
      * Obtiene la fecha y hora programada para la cita.
@@ -0,0 +1,58 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Frecuencia con la que se repiten las citas de una serie.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public enum EnumFrecuencia {
+
+    SEMANAL("Semanal"),
+    MENSUAL("Mensual");
+
+    private final String descripcion;
+
+    /**
+     * Constructor del enum Frecuencia.
+     * @param descripcion Nombre legible de la frecuencia
+     */
+    EnumFrecuencia(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * Calcula la fecha que queda a cierta cantidad de periodos de otra.
+     * Siempre se cuenta desde la fecha inicial, así que los meses cortos no
+     * corren las ocurrencias siguientes (31/01, 28/02, 31/03, ...).
+     *
+     * @param inicio Fecha inicial
+     * @param periodos Cantidad de semanas o meses a avanzar
+     * @return Fecha resultante
+     */
+    public LocalDateTime avanzar(LocalDateTime inicio, long periodos) {
+        return this == SEMANAL ? inicio.plusWeeks(periodos) : inicio.plusMonths(periodos);
+    }
+
+    /**
+     * Retorna una representación en cadena de la frecuencia.
+     * @return Descripción de la frecuencia
+     */
+    @Override
+    public String toString() {
+        return this.descripcion;
+    }
+
+    /**
+     * Obtiene la descripción de la frecuencia.
+     * @return Descripción de la frecuencia
+     */
+    public String getDescripcion() {
+        return descripcion;
+    }
+}
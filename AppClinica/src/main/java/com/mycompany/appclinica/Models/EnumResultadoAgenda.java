@@ -0,0 +1,50 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Models;
+
+/**
+ * Resultado de intentar agendar una cita, usado para informar cita por cita
+ * el resultado de un lote.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public enum EnumResultadoAgenda {
+
+    AGENDADA("Cita agendada."),
+    CITA_NULA("La cita es nula."),
+    PACIENTE_INEXISTENTE("El paciente no existe en el sistema."),
+    MEDICO_INEXISTENTE("El médico no existe en el sistema."),
+    FECHA_INVALIDA("La fecha de la cita debe ser futura."),
+    CONFLICTO_HORARIO("El médico ya tiene una cita agendada en ese horario."),
+    CONFLICTO_EN_LOTE("Otra cita del mismo lote ocupa ese horario del médico."),
+    SERIE_INVALIDA("La serie no tiene una regla de repetición válida.");
+
+    private final String descripcion;
+
+    /**
+     * Constructor del enum ResultadoAgenda.
+     * @param descripcion Mensaje legible del resultado
+     */
+    EnumResultadoAgenda(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * Retorna una representación en cadena del resultado.
+     * @return Descripción del resultado
+     */
+    @Override
+    public String toString() {
+        return this.descripcion;
+    }
+
+    /**
+     * Obtiene la descripción del resultado.
+     * @return Descripción del resultado
+     */
+    public String getDescripcion() {
+        return descripcion;
+    }
+}
@@ -9,7 +9,10 @@ package com.mycompany.appclinica.Models;
  * @author Alejandro Toro
  */
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Clase que representa a un médico en el sistema de gestión clínica. Contiene
@@ -24,7 +27,7 @@ public class Medico {
     private String apellido;
     private EnumEspecialidad especialidad;
     private String telefono;
-    private final List<Cita> citas;
+    private final Set<Cita> citas; // Orden de inserción, sin repetidos
 
     /**
      * Constructor completo de Medico.
@@ -41,7 +44,7 @@ public class Medico {
         this.apellido = apellido;
         this.especialidad = especialidad;
         this.telefono = telefono;
-        this.citas = new ArrayList<>();
+        this.citas = new LinkedHashSet<>();
     }
 
     /**
@@ -54,7 +57,7 @@ public class Medico {
     }
 
     /**
-     * Obtiene la lista de citas del médico.
+     * Obtiene la lista de citas del médico en orden de inserción.
      *
      * @return Lista de citas (copia defensiva)
      */
@@ -62,13 +65,25 @@ public class Medico {
         return new ArrayList<>(this.citas);
     }
 
+    /**
+     * Obtiene las citas del médico sin copiarlas, para recorridos frecuentes
+     * como el cálculo de la agenda.
+     *
+     * @return Vista de solo lectura de las citas en orden de inserción;
+     * refleja los cambios posteriores, así que no se debe recorrer mientras
+     * se agregan o eliminan citas
+     */
+    public Set<Cita> getCitasVista() {
+        return Collections.unmodifiableSet(this.citas);
+    }
+
     /**
      * Agrega una cita a la agenda del médico.
      *
      * @param cita Cita a agregar
      */
     public void agregarCita(Cita cita) {
-        if (cita != null && !this.citas.contains(cita)) {
+        if (cita != null) {
             this.citas.add(cita);
         }
     }
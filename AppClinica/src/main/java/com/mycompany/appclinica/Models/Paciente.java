@@ -12,7 +12,10 @@ package com.mycompany.appclinica.Models;
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Clase que representa a un paciente en el sistema de gestión clínica.
@@ -26,7 +29,7 @@ public class Paciente {
     private String apellido;
     private String telefono;
     private LocalDate fechaNacimiento;
-    private final List<Cita> citas;
+    private final Set<Cita> citas; // Orden de inserción, sin repetidos
 
     /**
      * Constructor completo de Paciente.
@@ -42,7 +45,7 @@ public class Paciente {
         this.apellido = apellido;
         this.telefono = telefono;
         this.fechaNacimiento = fechaNacimiento;
-        this.citas = new ArrayList<>();
+        this.citas = new LinkedHashSet<>();
     }
 
     /**
@@ -65,19 +68,30 @@ public class Paciente {
     }
 
     /**
-     * Obtiene la lista de citas del paciente.
+     * Obtiene la lista de citas del paciente en orden de inserción.
      * @return Lista de citas (copia defensiva)
      */
     public List<Cita> getCitas() {
         return new ArrayList<>(this.citas);
     }
 
+    /**
+     * Obtiene las citas del paciente sin copiarlas, para recorridos frecuentes
+     * como el cálculo de la agenda.
+     * @return Vista de solo lectura de las citas en orden de inserción;
+     * refleja los cambios posteriores, así que no se debe recorrer mientras
+     * se agregan o eliminan citas
+     */
+    public Set<Cita> getCitasVista() {
+        return Collections.unmodifiableSet(this.citas);
+    }
+
     /**
      * Agrega una cita a la lista del paciente.
      * @param cita Cita a agregar
      */
     public void agregarCita(Cita cita) {
-        if (cita != null && !this.citas.contains(cita)) {
+        if (cita != null) {
             this.citas.add(cita);
         }
     }
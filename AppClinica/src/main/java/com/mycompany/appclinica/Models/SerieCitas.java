@@ -0,0 +1,283 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Serie de citas que se repiten con el mismo paciente, médico y motivo, por
+ * ejemplo los controles semanales o mensuales de un paciente crónico. Solo
+ * guarda la regla (inicio, frecuencia, intervalo y cantidad) y las
+ * excepciones: la fecha de cada ocurrencia se calcula cuando se pide.
+ *
+ * Las ocurrencias se numeran desde 0 y la ocurrencia k usa el número de cita
+ * {@code getNumero() + k}, así que sus IDs no cambian aunque la serie se
+ * vuelva a expandir al cargar.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class SerieCitas {
+
+    public static final String PREFIJO = "SERIE-";
+    public static final int MAX_OCURRENCIAS = 520;
+
+    private int numero;
+    private final Paciente paciente;
+    private final Medico medico;
+    private final String motivo;
+    private final LocalDateTime inicio;
+    private final EnumFrecuencia frecuencia;
+    private final int intervalo;
+    private final int cantidad;
+    private int canceladasDesde;
+    private final BitSet excepciones;
+
+    /**
+     * Crea una serie nueva. El número lo asigna CitaService al agendarla.
+     *
+     * @param paciente Paciente de las citas
+     * @param medico Médico que atenderá las citas
+     * @param motivo Motivo de las consultas
+     * @param inicio Fecha y hora de la primera cita
+     * @param frecuencia Frecuencia de repetición
+     * @param intervalo Cada cuántas semanas o meses se repite (1 o más)
+     * @param cantidad Cantidad de ocurrencias, contando las excepciones
+     */
+    public SerieCitas(Paciente paciente, Medico medico, String motivo, LocalDateTime inicio,
+            EnumFrecuencia frecuencia, int intervalo, int cantidad) {
+        this(0, paciente, medico, motivo, inicio, frecuencia, intervalo, cantidad, cantidad, new BitSet());
+    }
+
+    /**
+     * Constructor completo (para recuperación de datos desde persistencia).
+     *
+     * @param numero Número de cita de la primera ocurrencia
+     * @param paciente Paciente de las citas
+     * @param medico Médico que atenderá las citas
+     * @param motivo Motivo de las consultas
+     * @param inicio Fecha y hora de la primera cita
+     * @param frecuencia Frecuencia de repetición
+     * @param intervalo Cada cuántas semanas o meses se repite
+     * @param cantidad Cantidad de ocurrencias, contando las excepciones
+     * @param canceladasDesde Primera ocurrencia cancelada (igual a cantidad si
+     * no hay canceladas)
+     * @param excepciones Ocurrencias que no se generan
+     */
+    public SerieCitas(int numero, Paciente paciente, Medico medico, String motivo, LocalDateTime inicio,
+            EnumFrecuencia frecuencia, int intervalo, int cantidad, int canceladasDesde, BitSet excepciones) {
+        this.numero = numero;
+        this.paciente = paciente;
+        this.medico = medico;
+        this.motivo = motivo;
+        this.inicio = inicio;
+        this.frecuencia = frecuencia;
+        this.intervalo = intervalo;
+        this.cantidad = cantidad;
+        this.canceladasDesde = canceladasDesde;
+        this.excepciones = (BitSet) excepciones.clone();
+    }
+
+    /**
+     * Calcula la fecha de una ocurrencia a partir de la regla.
+     *
+     * @param k Índice de la ocurrencia (desde 0)
+     * @return Fecha y hora de la ocurrencia
+     */
+    public LocalDateTime fechaOcurrencia(int k) {
+        return frecuencia.avanzar(inicio, (long) k * intervalo);
+    }
+
+    /**
+     * Recorre las fechas de las ocurrencias que no son excepciones,
+     * calculándolas una a una a medida que se piden.
+     *
+     * @return Fechas de la serie en orden
+     */
+    public Iterable<LocalDateTime> fechas() {
+        return () -> new Iterator<LocalDateTime>() {
+            private int k = excepciones.nextClearBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return k < cantidad;
+            }
+
+            @Override
+            public LocalDateTime next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                LocalDateTime fecha = fechaOcurrencia(k);
+                k = excepciones.nextClearBit(k + 1);
+                return fecha;
+            }
+        };
+    }
+
+    /**
+     * Busca la primera ocurrencia que cae en un día dado o después.
+     *
+     * @param dia Día desde el que se busca
+     * @return Índice de la ocurrencia, o la cantidad de ocurrencias si todas
+     * son anteriores
+     */
+    public int ocurrenciaDesde(LocalDate dia) {
+        int k = 0;
+        while (k < cantidad && fechaOcurrencia(k).toLocalDate().isBefore(dia)) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * @param k Índice de la ocurrencia
+     * @return true si la ocurrencia fue excluida de la serie
+     */
+    public boolean esExcepcion(int k) {
+        return excepciones.get(k);
+    }
+
+    /**
+     * Excluye una ocurrencia de la serie, por ejemplo porque el médico no
+     * atiende ese día o porque la cita se eliminó.
+     *
+     * @param k Índice de la ocurrencia
+     */
+    public void agregarExcepcion(int k) {
+        if (k >= 0 && k < cantidad) {
+            excepciones.set(k);
+        }
+    }
+
+    /**
+     * Excluye la ocurrencia que cae en un día dado, si la hay.
+     *
+     * @param dia Día a excluir
+     * @return true si había una ocurrencia ese día
+     */
+    public boolean agregarExcepcion(LocalDate dia) {
+        int k = ocurrenciaDesde(dia);
+        if (k < cantidad && fechaOcurrencia(k).toLocalDate().equals(dia)) {
+            excepciones.set(k);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param k Índice de la ocurrencia
+     * @return true si la ocurrencia quedó cancelada al cancelar la cola de
+     * la serie
+     */
+    public boolean estaCancelada(int k) {
+        return k >= canceladasDesde;
+    }
+
+    /**
+     * Cancela todas las ocurrencias desde una en adelante.
+     *
+     * @param k Índice de la primera ocurrencia a cancelar
+     */
+    public void cancelarDesde(int k) {
+        canceladasDesde = Math.max(0, Math.min(canceladasDesde, k));
+    }
+
+    /**
+     * @return true si todas las ocurrencias son excepciones
+     */
+    public boolean estaVacia() {
+        return excepciones.nextClearBit(0) >= cantidad;
+    }
+
+    /**
+     * Obtiene el ID de la serie, derivado del número de su primera cita.
+     *
+     * @return ID con formato "SERIE-XXXX"
+     */
+    public String getId() {
+        return String.format(PREFIJO + "%04d", numero);
+    }
+
+    /**
+     * @return Número de cita de la primera ocurrencia (0 si no se ha agendado)
+     */
+    public int getNumero() {
+        return numero;
+    }
+
+    /**
+     * @param numero Número de cita de la primera ocurrencia
+     */
+    public void setNumero(int numero) {
+        this.numero = numero;
+    }
+
+    /**
+     * @return Paciente de las citas
+     */
+    public Paciente getPaciente() {
+        return paciente;
+    }
+
+    /**
+     * @return Médico que atiende las citas
+     */
+    public Medico getMedico() {
+        return medico;
+    }
+
+    /**
+     * @return Motivo de las consultas
+     */
+    public String getMotivo() {
+        return motivo;
+    }
+
+    /**
+     * @return Fecha y hora de la primera cita
+     */
+    public LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    /**
+     * @return Frecuencia de repetición
+     */
+    public EnumFrecuencia getFrecuencia() {
+        return frecuencia;
+    }
+
+    /**
+     * @return Cada cuántas semanas o meses se repite
+     */
+    public int getIntervalo() {
+        return intervalo;
+    }
+
+    /**
+     * @return Cantidad de ocurrencias, contando las excepciones
+     */
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @return Primera ocurrencia cancelada (igual a la cantidad si no hay)
+     */
+    public int getCanceladasDesde() {
+        return canceladasDesde;
+    }
+
+    /**
+     * @return Copia de las ocurrencias excluidas
+     */
+    public BitSet getExcepciones() {
+        return (BitSet) excepciones.clone();
+    }
+}
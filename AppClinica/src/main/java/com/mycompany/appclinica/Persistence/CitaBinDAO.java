@@ -0,0 +1,183 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.EnumEstadoCita;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import com.mycompany.appclinica.Services.GeneradorIdCitas;
+import com.mycompany.appclinica.Services.MedicoService;
+import com.mycompany.appclinica.Services.PacienteService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso a las citas guardadas en el formato binario (citas.bin).
+ *
+ * Las cédulas y los motivos se guardan una sola vez en una tabla de textos y
+ * cada cita los referencia por posición. El ID "CITA-XXXX" se reduce a su
+ * número, la fecha a minutos desde la época (int) y el estado al ordinal del
+ * enum (un byte). Si la fecha tiene segundos, se marca el bit alto del estado
+ * y se agregan a continuación, para no perder precisión al convertir.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class CitaBinDAO {
+
+    private static final EnumEstadoCita[] ESTADOS = EnumEstadoCita.values();
+    private static final int CON_SEGUNDOS = 0x80;
+
+    private final String path = ConfiguracionPersistencia.DIRECTORIO_DATOS + "/citas.bin";
+    private final PacienteService pacienteService;
+    private final MedicoService medicoService;
+    private List<String> lineasInvalidas = new ArrayList<>();
+    private int maxNumeroLeido = 0;
+
+    public CitaBinDAO(PacienteService pacienteService, MedicoService medicoService) {
+        this.pacienteService = pacienteService;
+        this.medicoService = medicoService;
+    }
+
+    public void guardar(List<Cita> citas) throws IOException {
+        // La tabla debe escribirse antes que las citas, así que se arma en una primera pasada
+        FormatoBinario.TablaTextos tabla = new FormatoBinario.TablaTextos();
+        int[] referencias = new int[citas.size() * 4];
+        for (int i = 0; i < citas.size(); i++) {
+            Cita cita = citas.get(i);
+            int numero = GeneradorIdCitas.extraerNumero(cita.getId());
+            boolean idNumerico = numero >= 0 && GeneradorIdCitas.formatear(numero).equals(cita.getId());
+            referencias[i * 4] = idNumerico ? -1 : tabla.indice(cita.getId());
+            referencias[i * 4 + 1] = tabla.indice(cita.getPaciente().getCedula());
+            referencias[i * 4 + 2] = tabla.indice(cita.getMedico().getCedula());
+            referencias[i * 4 + 3] = tabla.indice(cita.getMotivo());
+        }
+        EscrituraAtomica.reemplazarBinario(new File(path), out -> {
+            FormatoBinario.escribirCabecera(out, FormatoBinario.TIPO_CITAS);
+            tabla.escribir(out);
+            FormatoBinario.escribirVarInt(out, citas.size());
+            for (int i = 0; i < citas.size(); i++) {
+                Cita cita = citas.get(i);
+                if (referencias[i * 4] < 0) {
+                    // 0 queda reservado para los IDs sin el formato "CITA-XXXX"
+                    FormatoBinario.escribirVarInt(out, GeneradorIdCitas.extraerNumero(cita.getId()) + 1);
+                } else {
+                    FormatoBinario.escribirVarInt(out, 0);
+                    FormatoBinario.escribirVarInt(out, referencias[i * 4]);
+                }
+                FormatoBinario.escribirVarInt(out, referencias[i * 4 + 1]);
+                FormatoBinario.escribirVarInt(out, referencias[i * 4 + 2]);
+                FormatoBinario.escribirVarInt(out, referencias[i * 4 + 3]);
+                LocalDateTime fecha = cita.getFecha();
+                out.writeInt((int) Math.floorDiv(fecha.toEpochSecond(ZoneOffset.UTC), 60));
+                boolean conSegundos = fecha.getSecond() != 0 || fecha.getNano() != 0;
+                out.writeByte(cita.getEstado().ordinal() | (conSegundos ? CON_SEGUNDOS : 0));
+                if (conSegundos) {
+                    out.writeByte(fecha.getSecond());
+                    out.writeInt(fecha.getNano());
+                }
+            }
+            FormatoBinario.escribirTextos(out, lineasInvalidas);
+        });
+    }
+
+    public List<Cita> cargar() throws IOException {
+        List<Cita> citas = new ArrayList<>();
+        lineasInvalidas.clear();
+        maxNumeroLeido = 0;
+        File f = new File(path);
+        if (!f.exists()) {
+            return citas;
+        }
+        ByteBuffer in = FormatoBinario.leer(f);
+        FormatoBinario.leerCabecera(in, FormatoBinario.TIPO_CITAS, f);
+        String[] tabla = FormatoBinario.leerTextos(in).toArray(new String[0]);
+        // Cada cédula se busca una sola vez, no una vez por cita
+        Paciente[] pacientes = new Paciente[tabla.length];
+        Medico[] medicos = new Medico[tabla.length];
+        boolean[] buscadoPaciente = new boolean[tabla.length];
+        boolean[] buscadoMedico = new boolean[tabla.length];
+
+        int cantidad = FormatoBinario.leerVarInt(in);
+        for (int i = 0; i < cantidad; i++) {
+            int numero = FormatoBinario.leerVarInt(in) - 1;
+            String id = numero >= 0 ? GeneradorIdCitas.formatear(numero) : tabla[FormatoBinario.leerVarInt(in)];
+            int refPaciente = FormatoBinario.leerVarInt(in);
+            int refMedico = FormatoBinario.leerVarInt(in);
+            String motivo = tabla[FormatoBinario.leerVarInt(in)];
+            LocalDateTime fecha = LocalDateTime.ofEpochSecond(in.getInt() * 60L, 0, ZoneOffset.UTC);
+            int estado = in.get() & 0xFF;
+            if ((estado & CON_SEGUNDOS) != 0) {
+                fecha = fecha.withSecond(in.get()).withNano(in.getInt());
+            }
+            EnumEstadoCita estadoCita = ESTADOS[estado & ~CON_SEGUNDOS];
+            maxNumeroLeido = Math.max(maxNumeroLeido, numero >= 0 ? numero : GeneradorIdCitas.extraerNumero(id));
+
+            if (!buscadoPaciente[refPaciente]) {
+                pacientes[refPaciente] = pacienteService.buscarPorCedula(tabla[refPaciente]).orElse(null);
+                buscadoPaciente[refPaciente] = true;
+            }
+            if (!buscadoMedico[refMedico]) {
+                medicos[refMedico] = medicoService.buscarPorCedula(tabla[refMedico]).orElse(null);
+                buscadoMedico[refMedico] = true;
+            }
+            Paciente paciente = pacientes[refPaciente];
+            Medico medico = medicos[refMedico];
+            if (paciente != null && medico != null) {
+                citas.add(new Cita(id, paciente, medico, motivo, estadoCita, fecha));
+            } else {
+                // Se conserva como línea de texto, igual que en citas.txt
+                String linea = id + "," + tabla[refPaciente] + "," + tabla[refMedico] + ","
+                        + fecha + "," + motivo + "," + estadoCita.name();
+                System.err.println("CITA: Registro " + (i + 1) + " (" + linea + ") ignorado: paciente o medico no encontrado");
+                lineasInvalidas.add(linea);
+            }
+        }
+        for (String invalida : FormatoBinario.leerTextos(in)) {
+            int coma = invalida.indexOf(',');
+            maxNumeroLeido = Math.max(maxNumeroLeido,
+                    GeneradorIdCitas.extraerNumero(coma < 0 ? invalida : invalida.substring(0, coma)));
+            lineasInvalidas.add(invalida);
+        }
+
+        for (Cita cita : citas) {
+            cita.getPaciente().agregarCita(cita);
+            cita.getMedico().agregarCita(cita);
+        }
+        return citas;
+    }
+
+    /**
+     * Indica si existe el archivo binario de citas.
+     *
+     * @return true si el archivo existe
+     */
+    public boolean existe() {
+        return new File(path).exists();
+    }
+
+    /**
+     * Obtiene el mayor número de cita visto en la última carga, incluyendo
+     * las líneas inválidas.
+     *
+     * @return Mayor número de cita leído (0 si no hay)
+     */
+    public int getMaxNumeroLeido() {
+        return maxNumeroLeido;
+    }
+
+    public List<String> getLineasInvalidas() {
+        return lineasInvalidas;
+    }
+
+    public void setLineasInvalidas(List<String> lineas) {
+        this.lineasInvalidas = new ArrayList<>(lineas);
+    }
+}
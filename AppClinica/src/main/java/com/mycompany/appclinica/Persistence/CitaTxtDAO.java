@@ -8,93 +8,472 @@ import com.mycompany.appclinica.Models.Cita;
 import com.mycompany.appclinica.Models.Paciente;
 import com.mycompany.appclinica.Models.Medico;
 import com.mycompany.appclinica.Models.EnumEstadoCita;
+import com.mycompany.appclinica.Services.GeneradorIdCitas;
 import com.mycompany.appclinica.Services.MedicoService;
 import com.mycompany.appclinica.Services.PacienteService;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class CitaTxtDAO {
-    private final String path = "src/main/resources/data/citas.txt";
+    private final String path = ConfiguracionPersistencia.DIRECTORIO_DATOS + "/citas.txt";
+    // Bitácora de cambios: "U,<linea de cita>" para altas/cambios y "D,<id>" para eliminaciones
+    private final String pathBitacora = ConfiguracionPersistencia.DIRECTORIO_DATOS + "/citas_bitacora.txt";
+    // Bitácora sellada por una compactación en curso (o que falló); se aplica antes que la actual
+    private final String pathBitacoraSellada = ConfiguracionPersistencia.DIRECTORIO_DATOS + "/citas_bitacora_sellada.txt";
+    // Último número de cita entregado, para no recorrer las citas al reiniciar
+    private final String pathSecuencia = ConfiguracionPersistencia.DIRECTORIO_DATOS + "/citas_secuencia.txt";
     private final PacienteService pacienteService;
     private final MedicoService medicoService;
     public List<String> lineasInvalidas = new ArrayList<>();
+    private int registrosBitacora = 0;
+    private int maxNumeroLeido = 0;
+    private int ultimaSecuenciaGuardada = 0;
+    // Serializa las escrituras del archivo base. Es distinto del monitor del
+    // DAO para que la bitácora siga recibiendo cambios mientras se compacta.
+    private final Object cerrojoBase = new Object();
 
     public CitaTxtDAO(PacienteService pacienteService, MedicoService medicoService) {
         this.pacienteService = pacienteService;
         this.medicoService = medicoService;
     }
 
+    /**
+     * Reescribe el archivo base completo y descarta las bitácoras, cuyos
+     * cambios ya quedan incluidos en el nuevo archivo. Quien llama debe
+     * asegurar que no se anexan cambios mientras tanto.
+     *
+     * @param citas Citas a guardar
+     * @throws IOException si ocurre un error de escritura
+     */
     public void guardar(List<Cita> citas) throws IOException {
-        File f = new File(path);
-        if (f.getParentFile() != null) f.getParentFile().mkdirs();
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(f))) {
+        synchronized (cerrojoBase) {
+            escribirBase(citas);
+            synchronized (this) {
+                new File(pathBitacora).delete();
+                new File(pathBitacoraSellada).delete();
+                registrosBitacora = 0;
+            }
+        }
+    }
+
+    /**
+     * Sella la bitácora actual para compactarla: sus registros pasan a la
+     * bitácora sellada y los cambios siguientes empiezan una bitácora nueva.
+     * Debe llamarse en el mismo instante en que se copia la lista de citas
+     * que luego recibe {@link #compactar(List)}, sin cambios entre ambos.
+     *
+     * Si una compactación anterior falló, los registros se agregan al final
+     * de la bitácora sellada que dejó, que sigue siendo la más antigua.
+     *
+     * @throws IOException si ocurre un error de escritura
+     */
+    public void sellarBitacora() throws IOException {
+        synchronized (cerrojoBase) {
+            synchronized (this) {
+                File actual = new File(pathBitacora);
+                if (actual.exists()) {
+                    File sellada = new File(pathBitacoraSellada);
+                    if (sellada.exists()) {
+                        List<String> registros = Files.readAllLines(actual.toPath(), StandardCharsets.UTF_8);
+                        EscrituraAtomica.anexar(sellada, ConfiguracionPersistencia.CITAS_BITACORA_SINCRONIZACION, writer -> {
+                            for (String registro : registros) {
+                                writer.write(registro);
+                                writer.newLine();
+                            }
+                        });
+                        Files.delete(actual.toPath());
+                    } else {
+                        Files.move(actual.toPath(), sellada.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    }
+                }
+                registrosBitacora = 0;
+            }
+        }
+    }
+
+    /**
+     * Escribe el archivo base con la copia tomada al sellar la bitácora y
+     * luego descarta la bitácora sellada. No toma el monitor del DAO durante
+     * la escritura, así que los cambios nuevos se siguen anexando a la
+     * bitácora actual. Si falla, la bitácora sellada se conserva y se vuelve
+     * a aplicar al cargar.
+     *
+     * @param citas Citas copiadas al sellar la bitácora
+     * @throws IOException si ocurre un error de escritura
+     */
+    public void compactar(List<Cita> citas) throws IOException {
+        synchronized (cerrojoBase) {
+            escribirBase(citas);
+            new File(pathBitacoraSellada).delete();
+        }
+    }
+
+    private void escribirBase(List<Cita> citas) throws IOException {
+        // Se escribe en un temporal y se reemplaza el archivo al final, para no perder datos si falla
+        EscrituraAtomica.reemplazar(new File(path), writer -> {
             for (Cita cita : citas) {
-                String motivo = sanitize(cita.getMotivo());
-                String linea = cita.getId() + "," +
-                    cita.getPaciente().getCedula() + "," +
-                    cita.getMedico().getCedula() + "," +
-                    cita.getFecha().toString() + "," +
-                    motivo + "," +
-                    cita.getEstado().name();
-                writer.write(linea);
+                writer.write(formatear(cita));
                 writer.newLine();
             }
             for (String invalida : lineasInvalidas) {
                 writer.write(invalida);
                 writer.newLine();
             }
-        }
+        });
+    }
+
+    /**
+     * Indica si los cambios individuales deben anexarse a la bitácora.
+     *
+     * @return true si el modo bitácora está activo
+     */
+    public boolean usaBitacora() {
+        return ConfiguracionPersistencia.CITAS_BITACORA;
+    }
+
+    /**
+     * Anexa a la bitácora el estado actual de una cita (alta o modificación).
+     *
+     * @param cita Cita modificada
+     * @throws IOException si ocurre un error de escritura
+     */
+    public void registrarCambio(Cita cita) throws IOException {
+        anexarBitacora("U," + formatear(cita));
+    }
+
+    /**
+     * Anexa a la bitácora el estado de varias citas con una sola escritura
+     * (y un solo fsync, según la política de la bitácora).
+     *
+     * @param citas Citas agregadas o modificadas
+     * @throws IOException si ocurre un error de escritura
+     */
+    public synchronized void registrarCambios(List<Cita> citas) throws IOException {
+        EscrituraAtomica.anexar(new File(pathBitacora), ConfiguracionPersistencia.CITAS_BITACORA_SINCRONIZACION, writer -> {
+            for (Cita cita : citas) {
+                writer.write("U," + formatear(cita));
+                writer.newLine();
+            }
+        });
+        registrosBitacora += citas.size();
+    }
+
+    /**
+     * Anexa a la bitácora la eliminación de una cita.
+     *
+     * @param id ID de la cita eliminada
+     * @throws IOException si ocurre un error de escritura
+     */
+    public void registrarEliminacion(String id) throws IOException {
+        anexarBitacora("D," + id);
+    }
+
+    /**
+     * Indica si la bitácora creció lo suficiente como para compactarla en el
+     * archivo base mediante {@link #compactar(List)}.
+     *
+     * @return true si conviene compactar
+     */
+    public synchronized boolean requiereCompactacion() {
+        return registrosBitacora >= ConfiguracionPersistencia.CITAS_BITACORA_MAX_REGISTROS;
+    }
+
+    private synchronized void anexarBitacora(String registro) throws IOException {
+        EscrituraAtomica.anexar(new File(pathBitacora), ConfiguracionPersistencia.CITAS_BITACORA_SINCRONIZACION, writer -> {
+            writer.write(registro);
+            writer.newLine();
+        });
+        registrosBitacora++;
     }
 
     public List<Cita> cargar() throws IOException {
+        return cargar(ConfiguracionPersistencia.CITAS_CARGA_PARALELA ? ConfiguracionPersistencia.CITAS_CARGA_HILOS : 1);
+    }
+
+    /**
+     * Carga las citas dividiendo el archivo en tantos bloques como hilos se
+     * indiquen. Cada bloque se interpreta en un ForkJoinPool sin modificar
+     * estado compartido, y los resultados se unen en el orden original del
+     * archivo (incluidos los números de línea de los errores y las líneas
+     * inválidas). Con un solo hilo todo ocurre en el hilo llamador.
+     *
+     * @param hilos Cantidad de hilos a usar
+     * @return Lista de citas válidas en el orden del archivo
+     * @throws IOException si ocurre un error de lectura
+     */
+    public List<Cita> cargar(int hilos) throws IOException {
         List<Cita> citas = new ArrayList<>();
         lineasInvalidas.clear();
+        maxNumeroLeido = 0;
+        Map<String, String> cambios = leerBitacora();
         File f = new File(path);
-        if (!f.exists()) return citas;
-        try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
-            String linea;
-            int lineaNum = 0;
-            while ((linea = reader.readLine()) != null) {
-                lineaNum++;
-                String[] partes = linea.split(",");
-                if (partes.length < 6) {
-                    System.err.println("CITA: Linea " + lineaNum + " ignorada: formato incorrecto (" + linea + ")");
-                    lineasInvalidas.add(linea);
-                    continue;
+        List<BloqueCitas> bloques = new ArrayList<>();
+        if (f.exists()) {
+            long[] limites = LectorTxt.dividir(f, hilos);
+            if (limites.length == 2) {
+                bloques.add(leerBloque(f, limites[0], limites[1], cambios));
+            } else {
+                bloques.addAll(leerBloquesEnParalelo(f, limites, cambios, hilos));
+            }
+        }
+
+        // Unir los bloques en orden, ajustando los números de línea
+        int lineaNum = 0;
+        Set<String> aplicados = new HashSet<>();
+        for (BloqueCitas bloque : bloques) {
+            unirBloque(bloque, lineaNum, citas);
+            aplicados.addAll(bloque.aplicados);
+            lineaNum += bloque.lineas;
+        }
+
+        // Citas creadas después de la última compactación
+        BloqueCitas nuevas = new BloqueCitas();
+        LineaTxt lineaBitacora = new LineaTxt();
+        for (Map.Entry<String, String> cambio : cambios.entrySet()) {
+            if (cambio.getValue() == null || aplicados.contains(cambio.getKey())) continue;
+            lineaBitacora.ubicar(cambio.getValue(), ++nuevas.lineas);
+            procesarLinea(lineaBitacora, nuevas);
+        }
+        unirBloque(nuevas, lineaNum, citas);
+
+        // Vincular con pacientes y médicos en el orden del archivo (no es seguro hacerlo en paralelo)
+        for (Cita cita : citas) {
+            cita.getPaciente().agregarCita(cita);
+            cita.getMedico().agregarCita(cita);
+        }
+        return citas;
+    }
+
+    private List<BloqueCitas> leerBloquesEnParalelo(File f, long[] limites, Map<String, String> cambios, int hilos)
+            throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            List<ForkJoinTask<BloqueCitas>> tareas = new ArrayList<>();
+            for (int i = 0; i + 1 < limites.length; i++) {
+                long desde = limites[i];
+                long hasta = limites[i + 1];
+                tareas.add(pool.submit(() -> leerBloque(f, desde, hasta, cambios)));
+            }
+            List<BloqueCitas> bloques = new ArrayList<>();
+            for (ForkJoinTask<BloqueCitas> tarea : tareas) {
+                bloques.add(tarea.get());
+            }
+            return bloques;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Carga de citas interrumpida", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Interpreta un bloque del archivo base aplicando los cambios de la
+     * bitácora. Solo lee el mapa de cambios, por lo que varios bloques pueden
+     * ejecutarse a la vez.
+     */
+    private BloqueCitas leerBloque(File f, long desde, long hasta, Map<String, String> cambios) throws IOException {
+        BloqueCitas bloque = new BloqueCitas();
+        LineaTxt lineaBitacora = new LineaTxt();
+        // Lectura por bloques de bytes: los campos se separan sin regex ni arreglos por línea
+        bloque.lineas = LectorTxt.recorrer(f, desde, hasta, linea -> {
+            if (!cambios.isEmpty()) {
+                String id = linea.texto(0);
+                if (cambios.containsKey(id)) {
+                    // La bitácora tiene una versión más reciente (o la eliminación) de esta cita
+                    bloque.aplicados.add(id);
+                    String reemplazo = cambios.get(id);
+                    if (reemplazo == null) return;
+                    lineaBitacora.ubicar(reemplazo, linea.getNumero());
+                    procesarLinea(lineaBitacora, bloque);
+                    return;
                 }
-                try {
-                    String id = partes[0];
-                    String cedulaPaciente = partes[1];
-                    String cedulaMedico = partes[2];
-                    LocalDateTime fecha = LocalDateTime.parse(partes[3]);
-                    String motivo = partes[4];
-                    EnumEstadoCita estado = EnumEstadoCita.valueOf(partes[5]);
-                    Paciente paciente = pacienteService.buscarPorCedula(cedulaPaciente).orElse(null);
-                    Medico medico = medicoService.buscarPorCedula(cedulaMedico).orElse(null);
-
-                    if (paciente != null && medico != null) {
-                        Cita cita = new Cita(paciente, medico, motivo, fecha);
-                        cita.setId(id);
-                        cita.setEstado(estado);
-                        citas.add(cita);
-                    } else {
-                        System.err.println("CITA: Linea " + lineaNum + " (" + linea + ") ignorada: paciente o medico no encontrado");
-                        lineasInvalidas.add(linea);
-                    }
-                } catch (Exception e) {
-                    System.err.println("CITA: Error en linea " + lineaNum + " (" + linea + "): " +
-                        e.getClass().getSimpleName() + " - " + e.getMessage());
-                    lineasInvalidas.add(linea);
+            }
+            procesarLinea(linea, bloque);
+        });
+        return bloque;
+    }
+
+    private void unirBloque(BloqueCitas bloque, int desplazamiento, List<Cita> citas) {
+        for (ErrorLinea error : bloque.errores) {
+            System.err.println(error.prefijo + (desplazamiento + error.numero) + error.detalle);
+        }
+        citas.addAll(bloque.citas);
+        lineasInvalidas.addAll(bloque.invalidas);
+        maxNumeroLeido = Math.max(maxNumeroLeido, bloque.maxNumero);
+    }
+
+    /**
+     * Lee las bitácoras y resume, por ID, la última versión de cada cita. Un
+     * valor null indica que la cita fue eliminada. La bitácora sellada que
+     * dejó una compactación interrumpida se aplica primero; volver a aplicarla
+     * sobre un archivo base que ya la incluye no cambia el resultado.
+     *
+     * @return Mapa ID -> línea de cita, en orden de primera aparición
+     * @throws IOException si ocurre un error de lectura
+     */
+    private Map<String, String> leerBitacora() throws IOException {
+        Map<String, String> cambios = new LinkedHashMap<>();
+        registrosBitacora = 0;
+        leerRegistros(new File(pathBitacoraSellada), cambios);
+        leerRegistros(new File(pathBitacora), cambios);
+        return cambios;
+    }
+
+    private void leerRegistros(File f, Map<String, String> cambios) throws IOException {
+        if (!f.exists()) return;
+        // UTF-8, como la escribe EscrituraAtomica.anexar, sin depender del juego de caracteres del sistema
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8))) {
+            String registro;
+            while ((registro = reader.readLine()) != null) {
+                registrosBitacora++;
+                if (registro.startsWith("U,")) {
+                    String linea = registro.substring(2);
+                    cambios.put(extraerId(linea), linea);
+                } else if (registro.startsWith("D,")) {
+                    cambios.put(registro.substring(2), null);
+                } else {
+                    System.err.println("CITA: Registro de bitacora ignorado (" + registro + ")");
                 }
             }
         }
-        return citas;
     }
-    
+
+    private void procesarLinea(LineaTxt linea, BloqueCitas bloque) {
+        // Las líneas inválidas también reservan su número de cita
+        bloque.maxNumero = Math.max(bloque.maxNumero, linea.enteroConPrefijo(0, GeneradorIdCitas.PREFIJO));
+        if (linea.cantidadCampos() < 6) {
+            bloque.invalida(linea, "CITA: Linea ", " ignorada: formato incorrecto (" + linea.linea() + ")");
+            return;
+        }
+        try {
+            String cedulaPaciente = linea.texto(1);
+            String cedulaMedico = linea.texto(2);
+            LocalDateTime fecha = linea.fechaHora(3);
+            EnumEstadoCita estado = EnumEstadoCita.valueOf(linea.texto(5));
+            Paciente paciente = pacienteService.buscarPorCedula(cedulaPaciente).orElse(null);
+            Medico medico = medicoService.buscarPorCedula(cedulaMedico).orElse(null);
+
+            if (paciente != null && medico != null) {
+                // Este constructor no toca las listas de paciente y médico; se vinculan al unir los bloques
+                bloque.citas.add(new Cita(linea.texto(0), paciente, medico, linea.texto(4), estado, fecha));
+            } else {
+                bloque.invalida(linea, "CITA: Linea ", " (" + linea.linea() + ") ignorada: paciente o medico no encontrado");
+            }
+        } catch (Exception e) {
+            bloque.invalida(linea, "CITA: Error en linea ", " (" + linea.linea() + "): " +
+                e.getClass().getSimpleName() + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resultado de interpretar un bloque del archivo de citas. Los números de
+     * línea son relativos al bloque hasta que se unen los resultados.
+     */
+    private static final class BloqueCitas {
+        final List<Cita> citas = new ArrayList<>();
+        final List<String> invalidas = new ArrayList<>();
+        final List<ErrorLinea> errores = new ArrayList<>();
+        final Set<String> aplicados = new HashSet<>();
+        int lineas;
+        int maxNumero;
+
+        void invalida(LineaTxt linea, String prefijo, String detalle) {
+            invalidas.add(linea.linea());
+            errores.add(new ErrorLinea(prefijo, linea.getNumero(), detalle));
+        }
+    }
+
+    /**
+     * Mensaje de error pendiente de imprimir con el número de línea global.
+     */
+    private static final class ErrorLinea {
+        final String prefijo;
+        final int numero;
+        final String detalle;
+
+        ErrorLinea(String prefijo, int numero, String detalle) {
+            this.prefijo = prefijo;
+            this.numero = numero;
+            this.detalle = detalle;
+        }
+    }
+
+    /**
+     * Obtiene el mayor número de cita visto en la última carga, incluyendo
+     * las líneas inválidas.
+     *
+     * @return Mayor número de cita leído (0 si no hay)
+     */
+    public int getMaxNumeroLeido() {
+        return maxNumeroLeido;
+    }
+
+    /**
+     * Lee el último número de cita entregado en ejecuciones anteriores.
+     *
+     * @return Último número guardado, o 0 si no existe o es ilegible
+     */
+    public int leerSecuencia() {
+        File f = new File(pathSecuencia);
+        if (!f.exists()) return 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
+            String linea = reader.readLine();
+            ultimaSecuenciaGuardada = linea == null ? 0 : Integer.parseInt(linea.trim());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("CITA: Secuencia de IDs ilegible, se usara la de los datos: " + e.getMessage());
+            ultimaSecuenciaGuardada = 0;
+        }
+        return ultimaSecuenciaGuardada;
+    }
+
+    /**
+     * Guarda el último número de cita entregado. Si otro hilo ya guardó un
+     * número mayor, no se sobrescribe.
+     *
+     * @param ultimo Último número entregado
+     * @throws IOException si ocurre un error de escritura
+     */
+    public synchronized void guardarSecuencia(int ultimo) throws IOException {
+        if (ultimo <= ultimaSecuenciaGuardada) return;
+        EscrituraAtomica.reemplazar(new File(pathSecuencia), writer -> {
+            writer.write(Integer.toString(ultimo));
+            writer.newLine();
+        });
+        ultimaSecuenciaGuardada = ultimo;
+    }
+
+    private String formatear(Cita cita) {
+        String motivo = sanitize(cita.getMotivo());
+        return cita.getId() + "," +
+            cita.getPaciente().getCedula() + "," +
+            cita.getMedico().getCedula() + "," +
+            cita.getFecha().toString() + "," +
+            motivo + "," +
+            cita.getEstado().name();
+    }
+
+    private String extraerId(String linea) {
+        int coma = linea.indexOf(',');
+        return coma < 0 ? linea : linea.substring(0, coma);
+    }
+
     private String sanitize(String input) {
         if (input == null) return "";
         return input.replace(",", "").replace("\n", "").replace("\r", "");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+/**
+ * Opciones de persistencia configurables por despliegue. Se leen de las
+ * propiedades del sistema (por ejemplo {@code -Dappclinica.citas.bitacora=false})
+ * para no tener que recompilar la aplicación.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public final class ConfiguracionPersistencia {
+
+    /**
+     * Carpeta donde se leen y escriben los archivos de datos. Permite, por
+     * ejemplo, que los benchmarks trabajen sobre datos sintéticos sin tocar
+     * los datos reales.
+     */
+    public static final String DIRECTORIO_DATOS
+            = System.getProperty("appclinica.datos.dir", "src/main/resources/data");
+
+    /**
+     * Si es true, los cambios de citas se anexan a una bitácora en lugar de
+     * reescribir todo el archivo de citas en cada operación.
+     */
+    public static final boolean CITAS_BITACORA
+            = Boolean.parseBoolean(System.getProperty("appclinica.citas.bitacora", "true"));
+
+    /**
+     * Cantidad de registros en la bitácora a partir de la cual se compacta en
+     * el archivo base.
+     */
+    public static final int CITAS_BITACORA_MAX_REGISTROS
+            = Integer.getInteger("appclinica.citas.bitacora.maxRegistros", 1000);
+
+    /**
+     * Si es true, el archivo de citas se divide en bloques que se interpretan
+     * en paralelo al iniciar la aplicación.
+     */
+    public static final boolean CITAS_CARGA_PARALELA
+            = Boolean.parseBoolean(System.getProperty("appclinica.citas.cargaParalela", "false"));
+
+    /**
+     * Cantidad de hilos usados en la carga paralela de citas.
+     */
+    public static final int CITAS_CARGA_HILOS
+            = Integer.getInteger("appclinica.citas.cargaHilos", Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Política de fsync para las escrituras: SIEMPRE, POR_LOTES o NUNCA.
+     */
+    public static final PoliticaSincronizacion POLITICA_SINCRONIZACION
+            = leerPolitica(System.getProperty("appclinica.fsync", "SIEMPRE"));
+
+    /**
+     * Política de fsync para los registros anexados a la bitácora de citas.
+     * Se anexa uno por cada cambio desde el hilo que lo hace (normalmente el
+     * de la interfaz), así que por defecto se sincroniza POR_LOTES.
+     */
+    public static final PoliticaSincronizacion CITAS_BITACORA_SINCRONIZACION
+            = leerPolitica(System.getProperty("appclinica.citas.bitacora.fsync", "POR_LOTES"));
+
+    /**
+     * Intervalo mínimo, en milisegundos, entre dos fsync con la política
+     * POR_LOTES.
+     */
+    public static final long INTERVALO_SINCRONIZACION_MS
+            = Long.getLong("appclinica.fsync.intervaloMs", 1000L);
+
+    /**
+     * Retraso, en milisegundos, con el que los servicios agrupan varias
+     * modificaciones seguidas en un único guardado en segundo plano.
+     */
+    public static final long RETRASO_GUARDADO_MS
+            = Long.getLong("appclinica.persistencia.retrasoMs", 200L);
+
+    /**
+     * Tiempo máximo, en milisegundos, que se espera al cerrar la aplicación
+     * para terminar los guardados pendientes.
+     */
+    public static final long TIEMPO_MAX_CIERRE_MS
+            = Long.getLong("appclinica.persistencia.cierreMs", 10000L);
+
+    private ConfiguracionPersistencia() {
+    }
+
+    private static PoliticaSincronizacion leerPolitica(String valor) {
+        try {
+            return PoliticaSincronizacion.valueOf(valor.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Politica de fsync desconocida (" + valor + "), se usara SIEMPRE");
+            return PoliticaSincronizacion.SIEMPRE;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import com.mycompany.appclinica.Services.MedicoService;
+import com.mycompany.appclinica.Services.PacienteService;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Herramienta de línea de comandos para convertir los datos entre el formato
+ * de texto (.txt) y el formato binario (.bin). Se ejecuta desde la carpeta
+ * del proyecto, igual que la aplicación:
+ *
+ * <pre>
+ * java com.mycompany.appclinica.Persistence.ConversorSnapshots txt-a-bin
+ * java com.mycompany.appclinica.Persistence.ConversorSnapshots bin-a-txt
+ * </pre>
+ *
+ * Las líneas inválidas se conservan en ambos sentidos. Al pasar a texto se
+ * reescribe citas.txt completo y se descarta la bitácora de citas.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public final class ConversorSnapshots {
+
+    private ConversorSnapshots() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1 || !(args[0].equals("txt-a-bin") || args[0].equals("bin-a-txt"))) {
+            System.err.println("Uso: ConversorSnapshots txt-a-bin | bin-a-txt");
+            System.exit(1);
+        }
+        try {
+            long inicio = System.nanoTime();
+            if (args[0].equals("txt-a-bin")) {
+                textoABinario();
+            } else {
+                binarioATexto();
+            }
+            System.out.println("Conversion terminada en " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            System.err.println("Error en la conversion: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Convierte pacientes.txt, medicos.txt y citas.txt (con su bitácora) a
+     * los archivos .bin.
+     *
+     * @throws IOException si ocurre un error de lectura o escritura
+     */
+    public static void textoABinario() throws IOException {
+        PacienteTxtDAO pacientesTxt = new PacienteTxtDAO();
+        PacienteBinDAO pacientesBin = new PacienteBinDAO();
+        List<Paciente> pacientes = pacientesTxt.cargar();
+        pacientesBin.setLineasInvalidas(pacientesTxt.getLineasInvalidas());
+        pacientesBin.guardar(pacientes);
+
+        MedicoTxtDAO medicosTxt = new MedicoTxtDAO();
+        MedicoBinDAO medicosBin = new MedicoBinDAO();
+        List<Medico> medicos = medicosTxt.cargar();
+        medicosBin.setLineasInvalidas(medicosTxt.getLineasInvalidas());
+        medicosBin.guardar(medicos);
+
+        // Las citas necesitan los servicios para resolver pacientes y médicos por cédula
+        PacienteService pacienteService = new PacienteService();
+        MedicoService medicoService = new MedicoService();
+        CitaTxtDAO citasTxt = new CitaTxtDAO(pacienteService, medicoService);
+        CitaBinDAO citasBin = new CitaBinDAO(pacienteService, medicoService);
+        List<Cita> citas = citasTxt.cargar();
+        citasBin.setLineasInvalidas(citasTxt.lineasInvalidas);
+        citasBin.guardar(citas);
+
+        System.out.println("Convertidos " + pacientes.size() + " pacientes, " + medicos.size()
+                + " medicos y " + citas.size() + " citas a formato binario");
+    }
+
+    /**
+     * Convierte los archivos .bin a pacientes.txt, medicos.txt y citas.txt.
+     *
+     * @throws IOException si ocurre un error de lectura o escritura
+     */
+    public static void binarioATexto() throws IOException {
+        PacienteBinDAO pacientesBin = new PacienteBinDAO();
+        PacienteTxtDAO pacientesTxt = new PacienteTxtDAO();
+        List<Paciente> pacientes = pacientesBin.cargar();
+        pacientesTxt.setLineasInvalidas(pacientesBin.getLineasInvalidas());
+        pacientesTxt.guardar(pacientes);
+
+        MedicoBinDAO medicosBin = new MedicoBinDAO();
+        MedicoTxtDAO medicosTxt = new MedicoTxtDAO();
+        List<Medico> medicos = medicosBin.cargar();
+        medicosTxt.setLineasInvalidas(medicosBin.getLineasInvalidas());
+        medicosTxt.guardar(medicos);
+
+        // Los servicios leen los archivos de texto recién escritos
+        PacienteService pacienteService = new PacienteService();
+        MedicoService medicoService = new MedicoService();
+        CitaBinDAO citasBin = new CitaBinDAO(pacienteService, medicoService);
+        CitaTxtDAO citasTxt = new CitaTxtDAO(pacienteService, medicoService);
+        List<Cita> citas = citasBin.cargar();
+        citasTxt.lineasInvalidas.clear();
+        citasTxt.lineasInvalidas.addAll(citasBin.getLineasInvalidas());
+        citasTxt.guardar(citas);
+
+        System.out.println("Convertidos " + pacientes.size() + " pacientes, " + medicos.size()
+                + " medicos y " + citas.size() + " citas a formato de texto");
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritura segura de los archivos de datos. El contenido se escribe en un
+ * archivo temporal junto al original, se fuerza siempre al disco y luego se
+ * reemplaza el original con un movimiento atómico. Si la aplicación o el
+ * equipo fallan a mitad de la escritura, queda el archivo anterior o el
+ * nuevo completo, nunca uno truncado.
+ *
+ * La {@link PoliticaSincronizacion} configurada solo decide cuándo se fuerza
+ * la entrada del directorio (que hace durable el reemplazo) y los registros
+ * anexados a una bitácora, que pueden usar su propia política. Con POR_LOTES cada archivo o directorio lleva su
+ * propio intervalo, y una escritura que no se sincroniza deja programada una
+ * sincronización al terminar el intervalo.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+final class EscrituraAtomica {
+
+    // Ruta -> momento de su última sincronización (política POR_LOTES)
+    private static final Map<String, Long> ultimaSincronizacion = new HashMap<>();
+    // Rutas con una sincronización diferida ya programada
+    private static final Set<String> programadas = new HashSet<>();
+    private static ScheduledExecutorService hiloSincronizacion;
+
+    private EscrituraAtomica() {
+    }
+
+    /**
+     * Contenido a escribir en un archivo, línea por línea.
+     */
+    interface Contenido {
+
+        void escribir(BufferedWriter writer) throws IOException;
+    }
+
+    /**
+     * Contenido binario a escribir en un archivo.
+     */
+    interface ContenidoBinario {
+
+        void escribir(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Reemplaza el archivo destino con el contenido indicado de forma atómica.
+     *
+     * @param destino Archivo a reemplazar
+     * @param contenido Contenido a escribir
+     * @throws IOException si ocurre un error de escritura
+     */
+    static void reemplazar(File destino, Contenido contenido) throws IOException {
+        reemplazarBinario(destino, out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            contenido.escribir(writer);
+            writer.flush();
+        });
+    }
+
+    /**
+     * Reemplaza el archivo destino con contenido binario de forma atómica.
+     *
+     * @param destino Archivo a reemplazar
+     * @param contenido Contenido a escribir
+     * @throws IOException si ocurre un error de escritura
+     */
+    static void reemplazarBinario(File destino, ContenidoBinario contenido) throws IOException {
+        File parent = destino.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        // Un temporal con nombre único por escritura: dos escrituras del mismo archivo no se pisan
+        Path temporal = Files.createTempFile(parent.toPath(), destino.getName(), ".tmp");
+        try {
+            copiarPermisos(destino.toPath(), temporal);
+            try (FileOutputStream out = new FileOutputStream(temporal.toFile())) {
+                DataOutputStream datos = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+                contenido.escribir(datos);
+                datos.flush();
+                // Siempre: si el cambio de nombre llega al disco antes que los datos, el archivo queda vacío
+                out.getFD().sync();
+            }
+            try {
+                Files.move(temporal, destino.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        if (debeSincronizar(parent, ConfiguracionPersistencia.POLITICA_SINCRONIZACION)) {
+            forzar(parent);
+        }
+    }
+
+    /**
+     * Conserva en el temporal los permisos del archivo que reemplaza, porque
+     * createTempFile lo crea legible solo por el dueño.
+     */
+    private static void copiarPermisos(Path destino, Path temporal) {
+        try {
+            Files.setPosixFilePermissions(temporal, Files.getPosixFilePermissions(destino));
+        } catch (IOException | UnsupportedOperationException e) {
+            // El archivo aún no existe o el sistema no maneja permisos POSIX
+        }
+    }
+
+    /**
+     * Anexa contenido al final de un archivo (por ejemplo, una bitácora) y lo
+     * fuerza al disco según la política indicada.
+     *
+     * @param destino Archivo al que se anexa
+     * @param politica Política de fsync para este archivo
+     * @param contenido Contenido a escribir
+     * @throws IOException si ocurre un error de escritura
+     */
+    static void anexar(File destino, PoliticaSincronizacion politica, Contenido contenido) throws IOException {
+        File parent = destino.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (FileOutputStream out = new FileOutputStream(destino, true);
+                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            contenido.escribir(writer);
+            writer.flush();
+            if (debeSincronizar(destino, politica)) {
+                out.getFD().sync();
+            }
+        }
+    }
+
+    /**
+     * Decide si la escritura actual sobre un archivo o directorio debe
+     * forzarse al disco. Con la política POR_LOTES se sincroniza cada ruta
+     * como máximo una vez por intervalo; si ahora no toca, se programa una
+     * sincronización al terminar el intervalo, de modo que ninguna escritura
+     * quede sin sincronizar.
+     *
+     * @param objetivo Archivo o directorio a sincronizar
+     * @param politica Política que aplica a ese archivo o directorio
+     * @return true si se debe sincronizar ahora
+     */
+    private static synchronized boolean debeSincronizar(File objetivo, PoliticaSincronizacion politica) {
+        switch (politica) {
+            case SIEMPRE:
+                return true;
+            case NUNCA:
+                return false;
+            default:
+                String clave = objetivo.getAbsolutePath();
+                long ahora = System.currentTimeMillis();
+                Long ultima = ultimaSincronizacion.get(clave);
+                long espera = ultima == null ? 0 : ultima + ConfiguracionPersistencia.INTERVALO_SINCRONIZACION_MS - ahora;
+                if (espera <= 0) {
+                    ultimaSincronizacion.put(clave, ahora);
+                    return true;
+                }
+                if (programadas.add(clave)) {
+                    hiloSincronizacion().schedule(() -> sincronizarDiferido(objetivo, clave),
+                            espera, TimeUnit.MILLISECONDS);
+                }
+                return false;
+        }
+    }
+
+    private static ScheduledExecutorService hiloSincronizacion() {
+        if (hiloSincronizacion == null) {
+            hiloSincronizacion = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "sincronizacion-disco");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return hiloSincronizacion;
+    }
+
+    /**
+     * Sincronización programada por una escritura que no se sincronizó. Cubre
+     * también las escrituras que llegaron mientras estaba programada.
+     */
+    private static void sincronizarDiferido(File objetivo, String clave) {
+        synchronized (EscrituraAtomica.class) {
+            programadas.remove(clave);
+            ultimaSincronizacion.put(clave, System.currentTimeMillis());
+        }
+        forzar(objetivo);
+    }
+
+    /**
+     * Fuerza al disco un archivo, o la entrada de un directorio para que un
+     * cambio de nombre sobreviva a un corte de energía.
+     */
+    private static void forzar(File objetivo) {
+        if (objetivo == null) {
+            return;
+        }
+        if (objetivo.isDirectory()) {
+            try (FileChannel canal = FileChannel.open(objetivo.toPath(), StandardOpenOption.READ)) {
+                canal.force(true);
+            } catch (IOException e) {
+                // En algunos sistemas (p. ej. Windows) no se puede abrir un directorio
+            }
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(objetivo.toPath(), StandardOpenOption.WRITE)) {
+            canal.force(true);
+        } catch (NoSuchFileException e) {
+            // El archivo se eliminó (p. ej. una bitácora ya compactada): no queda nada que sincronizar
+        } catch (IOException e) {
+            System.err.println("Error sincronizando " + objetivo.getName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utilidades comunes de los archivos de respaldo binarios (.bin).
+ *
+ * Todo archivo empieza con una cabecera: la marca "ACLB" (4 bytes), un byte con
+ * el tipo de dato ('P' pacientes, 'M' médicos, 'C' citas) y la versión del
+ * formato (short). Los enteros no negativos se guardan como varint (7 bits
+ * por byte) y los textos como su largo en bytes seguido del contenido en
+ * UTF-8. Los enums se guardan por ordinal, así que reordenar una constante
+ * obliga a subir la versión.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+final class FormatoBinario {
+
+    static final int MARCA = 0x41434C42; // "ACLB"
+    static final byte TIPO_PACIENTES = 'P';
+    static final byte TIPO_MEDICOS = 'M';
+    static final byte TIPO_CITAS = 'C';
+    static final short VERSION = 1;
+
+    private FormatoBinario() {
+    }
+
+    static void escribirCabecera(DataOutputStream out, byte tipo) throws IOException {
+        out.writeInt(MARCA);
+        out.writeByte(tipo);
+        out.writeShort(VERSION);
+    }
+
+    /**
+     * Valida la cabecera del archivo y deja el buffer posicionado en los
+     * datos.
+     *
+     * @throws IOException si el archivo no es del tipo o la versión esperados
+     */
+    static void leerCabecera(ByteBuffer in, byte tipo, File f) throws IOException {
+        if (in.remaining() < 7 || in.getInt() != MARCA || in.get() != tipo) {
+            throw new IOException("El archivo " + f.getName() + " no tiene el formato binario esperado");
+        }
+        short version = in.getShort();
+        if (version != VERSION) {
+            throw new IOException("Version " + version + " del archivo " + f.getName() + " no soportada");
+        }
+    }
+
+    /**
+     * Lee el archivo completo en un buffer en memoria. No se mapea el
+     * archivo: un mapeo sigue abierto hasta que el recolector lo reclama, y
+     * en Windows impediría reemplazar el archivo al guardar.
+     *
+     * @param f Archivo a leer
+     * @return Buffer con el contenido, listo para leer desde el inicio
+     * @throws IOException si ocurre un error de lectura o el archivo supera 2 GB
+     */
+    static ByteBuffer leer(File f) throws IOException {
+        try (FileChannel canal = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE - 8) {
+                throw new IOException("El archivo " + f.getName() + " es demasiado grande");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) canal.size());
+            while (buffer.hasRemaining()) {
+                if (canal.read(buffer) < 0) {
+                    throw new EOFException("El archivo " + f.getName() + " termino antes de lo esperado");
+                }
+            }
+            return buffer.flip();
+        }
+    }
+
+    static void escribirVarInt(DataOutputStream out, int valor) throws IOException {
+        while ((valor & ~0x7F) != 0) {
+            out.writeByte((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        out.writeByte(valor);
+    }
+
+    static int leerVarInt(ByteBuffer in) {
+        int valor = 0;
+        int desplazamiento = 0;
+        byte b;
+        do {
+            b = in.get();
+            valor |= (b & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while ((b & 0x80) != 0);
+        return valor;
+    }
+
+    static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        byte[] bytes = (texto == null ? "" : texto).getBytes(StandardCharsets.UTF_8);
+        escribirVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String leerTexto(ByteBuffer in) {
+        int largo = leerVarInt(in);
+        String texto;
+        if (in.hasArray()) {
+            texto = new String(in.array(), in.arrayOffset() + in.position(), largo, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[largo];
+            in.get(in.position(), bytes);
+            texto = new String(bytes, StandardCharsets.UTF_8);
+        }
+        in.position(in.position() + largo);
+        return texto;
+    }
+
+    static void escribirTextos(DataOutputStream out, List<String> textos) throws IOException {
+        escribirVarInt(out, textos.size());
+        for (String texto : textos) {
+            escribirTexto(out, texto);
+        }
+    }
+
+    static List<String> leerTextos(ByteBuffer in) {
+        int cantidad = leerVarInt(in);
+        List<String> textos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            textos.add(leerTexto(in));
+        }
+        return textos;
+    }
+
+    /**
+     * Tabla de textos repetidos (cédulas, motivos). Cada texto se escribe una
+     * sola vez al inicio del archivo y los registros lo referencian por
+     * posición.
+     */
+    static final class TablaTextos {
+
+        private final Map<String, Integer> posiciones = new HashMap<>();
+        private final List<String> textos = new ArrayList<>();
+
+        int indice(String texto) {
+            String clave = texto == null ? "" : texto;
+            Integer posicion = posiciones.get(clave);
+            if (posicion == null) {
+                posicion = textos.size();
+                posiciones.put(clave, posicion);
+                textos.add(clave);
+            }
+            return posicion;
+        }
+
+        void escribir(DataOutputStream out) throws IOException {
+            escribirTextos(out, textos);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Lector de archivos de datos que recorre el contenido como bytes (NIO). El
+ * archivo se lee por ventanas en un buffer reutilizado, de modo que también
+ * funciona con archivos de más de 2 GB, y cada línea se entrega como una
+ * {@link LineaTxt} reutilizada.
+ *
+ * No se usan archivos mapeados en memoria: el mapeo se libera recién cuando
+ * el recolector de basura lo reclama, y en Windows un archivo mapeado no se
+ * puede reemplazar, lo que haría fallar el siguiente guardado atómico.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+final class LectorTxt {
+
+    private static final int VENTANA = 4 * 1024 * 1024; // 4 MB por lectura
+    private static final int VENTANA_MAXIMA = Integer.MAX_VALUE - 8;
+
+    private LectorTxt() {
+    }
+
+    /**
+     * Recorre todas las líneas del archivo en orden. Acepta saltos de línea
+     * "\n" y "\r\n", igual que BufferedReader.readLine().
+     *
+     * @param f Archivo a leer
+     * @param consumidor Acción a ejecutar por cada línea
+     * @return Cantidad de líneas leídas
+     * @throws IOException si ocurre un error de lectura
+     */
+    static int recorrer(File f, Consumer<LineaTxt> consumidor) throws IOException {
+        return recorrer(f, 0, f.length(), consumidor);
+    }
+
+    /**
+     * Recorre las líneas que empiezan entre dos posiciones del archivo. Las
+     * posiciones deben coincidir con inicios de línea, como las que entrega
+     * {@link #dividir(File, int)}. Los números de línea son relativos al
+     * bloque y empiezan en 1.
+     *
+     * @param f Archivo a leer
+     * @param desde Posición (en bytes) del primer carácter del bloque
+     * @param hasta Posición siguiente al último byte del bloque
+     * @param consumidor Acción a ejecutar por cada línea
+     * @return Cantidad de líneas leídas
+     * @throws IOException si ocurre un error de lectura
+     */
+    static int recorrer(File f, long desde, long hasta, Consumer<LineaTxt> consumidor) throws IOException {
+        LineaTxt linea = new LineaTxt();
+        int numero = 0;
+        try (FileChannel canal = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            long posicion = desde;
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(VENTANA, hasta - desde)));
+            while (posicion < hasta) {
+                int largo = (int) Math.min(buffer.capacity(), hasta - posicion);
+                boolean ultima = posicion + largo == hasta;
+                leerVentana(canal, buffer, posicion, largo);
+                int inicio = 0;
+                for (int i = 0; i < largo; i++) {
+                    if (buffer.get(i) == '\n') {
+                        linea.ubicar(buffer, inicio, sinRetorno(buffer, inicio, i), ++numero);
+                        consumidor.accept(linea);
+                        inicio = i + 1;
+                    }
+                }
+                if (ultima) {
+                    if (inicio < largo) {
+                        // Última línea sin salto de línea final
+                        linea.ubicar(buffer, inicio, sinRetorno(buffer, inicio, largo), ++numero);
+                        consumidor.accept(linea);
+                    }
+                    break;
+                }
+                if (inicio == 0) {
+                    // Ninguna línea completa cabe en la ventana: se amplía
+                    buffer = ByteBuffer.allocate((int) Math.min((long) buffer.capacity() * 2, VENTANA_MAXIMA));
+                    continue;
+                }
+                // La línea incompleta se vuelve a leer al comienzo de la siguiente ventana
+                posicion += inicio;
+            }
+        }
+        return numero;
+    }
+
+    /**
+     * Divide el archivo en bloques de tamaño parecido que empiezan siempre al
+     * inicio de una línea, para poder leerlos de forma independiente.
+     *
+     * @param f Archivo a dividir
+     * @param partes Cantidad de bloques deseada
+     * @return Límites de los bloques: el bloque i va de limites[i] a
+     * limites[i + 1]
+     * @throws IOException si ocurre un error de lectura
+     */
+    static long[] dividir(File f, int partes) throws IOException {
+        long tamanio = f.length();
+        partes = (int) Math.max(1, Math.min(partes, tamanio));
+        long[] limites = new long[partes + 1];
+        limites[partes] = tamanio;
+        try (FileChannel canal = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer unByte = ByteBuffer.allocate(1);
+            for (int i = 1; i < partes; i++) {
+                // Avanzar desde el corte aproximado hasta después del siguiente salto de línea
+                long pos = Math.max(tamanio * i / partes, limites[i - 1]);
+                while (pos < tamanio) {
+                    unByte.clear();
+                    canal.read(unByte, pos++);
+                    if (unByte.get(0) == '\n') {
+                        break;
+                    }
+                }
+                limites[i] = pos;
+            }
+        }
+        return limites;
+    }
+
+    /**
+     * Llena el buffer con los bytes del archivo desde una posición. El canal
+     * puede entregar menos bytes por lectura, así que se lee hasta completar.
+     */
+    private static void leerVentana(FileChannel canal, ByteBuffer buffer, long posicion, int largo) throws IOException {
+        buffer.clear().limit(largo);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicion + buffer.position()) < 0) {
+                throw new EOFException("El archivo termino antes de lo esperado");
+            }
+        }
+    }
+
+    private static int sinRetorno(ByteBuffer buffer, int inicio, int fin) {
+        return fin > inicio && buffer.get(fin - 1) == '\r' ? fin - 1 : fin;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Vista de una línea de un archivo de datos separado por comas. Se reutiliza
+ * para todas las líneas del archivo: solo guarda las posiciones de las comas,
+ * así que leer la línea no crea arreglos ni usa expresiones regulares. Los
+ * campos se convierten a texto o a fecha únicamente cuando se piden.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+final class LineaTxt {
+
+    private ByteBuffer buffer;
+    private int inicio;
+    private int fin;
+    private int numero;
+    private int[] separadores = new int[8]; // separadores[i] = posición donde termina el campo i
+    private int campos;
+    private byte[] temporal = new byte[256];
+
+    /**
+     * Ubica la vista sobre una línea del buffer (sin el salto de línea).
+     *
+     * @param buffer Buffer con el contenido del archivo
+     * @param inicio Posición del primer byte de la línea
+     * @param fin Posición siguiente al último byte de la línea
+     * @param numero Número de línea (empezando en 1)
+     */
+    void ubicar(ByteBuffer buffer, int inicio, int fin, int numero) {
+        this.buffer = buffer;
+        this.inicio = inicio;
+        this.fin = fin;
+        this.numero = numero;
+        this.campos = 0;
+        for (int i = inicio; i < fin; i++) {
+            if (buffer.get(i) == ',') {
+                agregarSeparador(i);
+            }
+        }
+        agregarSeparador(fin);
+        // Igual que String.split(","): se descartan los campos vacíos del final
+        while (campos > 1 && longitud(campos - 1) == 0) {
+            campos--;
+        }
+    }
+
+    /**
+     * Ubica la vista sobre una línea que ya está en memoria como texto (por
+     * ejemplo, un registro de la bitácora).
+     *
+     * @param linea Texto de la línea
+     * @param numero Número de línea
+     */
+    void ubicar(String linea, int numero) {
+        byte[] bytes = linea.getBytes(StandardCharsets.UTF_8);
+        ubicar(ByteBuffer.wrap(bytes), 0, bytes.length, numero);
+    }
+
+    private void agregarSeparador(int posicion) {
+        if (campos == separadores.length) {
+            int[] mayor = new int[campos * 2];
+            System.arraycopy(separadores, 0, mayor, 0, campos);
+            separadores = mayor;
+        }
+        separadores[campos++] = posicion;
+    }
+
+    /**
+     * @return Número de línea dentro del archivo
+     */
+    int getNumero() {
+        return numero;
+    }
+
+    /**
+     * @return Cantidad de campos, con el mismo criterio que String.split(",")
+     */
+    int cantidadCampos() {
+        return campos;
+    }
+
+    private int inicioCampo(int campo) {
+        return campo == 0 ? inicio : separadores[campo - 1] + 1;
+    }
+
+    private int longitud(int campo) {
+        return separadores[campo] - inicioCampo(campo);
+    }
+
+    /**
+     * Decodifica un campo como texto UTF-8.
+     *
+     * @param campo Índice del campo
+     * @return Texto del campo
+     */
+    String texto(int campo) {
+        return decodificar(inicioCampo(campo), separadores[campo]);
+    }
+
+    /**
+     * Decodifica la línea completa, tal como aparece en el archivo.
+     *
+     * @return Texto de la línea
+     */
+    String linea() {
+        return decodificar(inicio, fin);
+    }
+
+    private String decodificar(int desde, int hasta) {
+        int largo = hasta - desde;
+        if (largo > temporal.length) {
+            temporal = new byte[Math.max(largo, temporal.length * 2)];
+        }
+        buffer.get(desde, temporal, 0, largo);
+        return new String(temporal, 0, largo, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Interpreta un campo con la forma {@code <prefijo><número>}, por ejemplo
+     * "CITA-0012", sin crear cadenas intermedias.
+     *
+     * @param campo Índice del campo
+     * @param prefijo Prefijo ASCII esperado
+     * @return El número, o -1 si el campo no tiene esa forma
+     */
+    int enteroConPrefijo(int campo, String prefijo) {
+        int pos = inicioCampo(campo);
+        int hasta = separadores[campo];
+        if (hasta - pos <= prefijo.length()) {
+            return -1;
+        }
+        for (int i = 0; i < prefijo.length(); i++) {
+            if (buffer.get(pos + i) != prefijo.charAt(i)) {
+                return -1;
+            }
+        }
+        long valor = 0;
+        for (int i = pos + prefijo.length(); i < hasta; i++) {
+            int d = buffer.get(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            valor = valor * 10 + d;
+            if (valor > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) valor;
+    }
+
+    /**
+     * Interpreta un campo con formato yyyy-MM-dd. Si el campo tiene otra forma
+     * se delega en LocalDate.parse para conservar sus mensajes de error.
+     *
+     * @param campo Índice del campo
+     * @return Fecha leída
+     */
+    LocalDate fecha(int campo) {
+        int pos = inicioCampo(campo);
+        if (longitud(campo) == 10 && buffer.get(pos + 4) == '-' && buffer.get(pos + 7) == '-') {
+            int anio = digitos(pos, 4);
+            int mes = digitos(pos + 5, 2);
+            int dia = digitos(pos + 8, 2);
+            if (anio >= 0 && mes >= 0 && dia >= 0) {
+                return LocalDate.of(anio, mes, dia);
+            }
+        }
+        return LocalDate.parse(texto(campo));
+    }
+
+    /**
+     * Interpreta un campo con el formato de LocalDateTime.toString():
+     * yyyy-MM-ddTHH:mm con segundos opcionales. Cualquier otra forma se delega
+     * en LocalDateTime.parse.
+     *
+     * @param campo Índice del campo
+     * @return Fecha y hora leídas
+     */
+    LocalDateTime fechaHora(int campo) {
+        int pos = inicioCampo(campo);
+        int largo = longitud(campo);
+        if ((largo == 16 || largo == 19)
+                && buffer.get(pos + 4) == '-' && buffer.get(pos + 7) == '-'
+                && buffer.get(pos + 10) == 'T' && buffer.get(pos + 13) == ':'
+                && (largo == 16 || buffer.get(pos + 16) == ':')) {
+            int anio = digitos(pos, 4);
+            int mes = digitos(pos + 5, 2);
+            int dia = digitos(pos + 8, 2);
+            int hora = digitos(pos + 11, 2);
+            int minuto = digitos(pos + 14, 2);
+            int segundo = largo == 19 ? digitos(pos + 17, 2) : 0;
+            if ((anio | mes | dia | hora | minuto | segundo) >= 0) {
+                return LocalDateTime.of(anio, mes, dia, hora, minuto, segundo);
+            }
+        }
+        return LocalDateTime.parse(texto(campo));
+    }
+
+    private int digitos(int pos, int cantidad) {
+        int valor = 0;
+        for (int i = 0; i < cantidad; i++) {
+            int d = buffer.get(pos + i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            valor = valor * 10 + d;
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+import com.mycompany.appclinica.Models.EnumEspecialidad;
+import com.mycompany.appclinica.Models.Medico;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso a los médicos guardados en el formato binario (medicos.bin). La
+ * especialidad se guarda como el ordinal del enum en un byte y los textos con
+ * largo prefijado. Las líneas inválidas del archivo de texto se conservan al
+ * final.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class MedicoBinDAO {
+
+    private static final EnumEspecialidad[] ESPECIALIDADES = EnumEspecialidad.values();
+
+    private final String path = ConfiguracionPersistencia.DIRECTORIO_DATOS + "/medicos.bin";
+    private List<String> lineasInvalidas = new ArrayList<>();
+
+    public void guardar(List<Medico> medicos) throws IOException {
+        EscrituraAtomica.reemplazarBinario(new File(path), out -> {
+            FormatoBinario.escribirCabecera(out, FormatoBinario.TIPO_MEDICOS);
+            FormatoBinario.escribirVarInt(out, medicos.size());
+            for (Medico medico : medicos) {
+                FormatoBinario.escribirTexto(out, medico.getCedula());
+                FormatoBinario.escribirTexto(out, medico.getNombre());
+                FormatoBinario.escribirTexto(out, medico.getApellido());
+                out.writeByte(medico.getEspecialidad().ordinal());
+                FormatoBinario.escribirTexto(out, medico.getTelefono());
+            }
+            FormatoBinario.escribirTextos(out, lineasInvalidas);
+        });
+    }
+
+    public List<Medico> cargar() throws IOException {
+        List<Medico> medicos = new ArrayList<>();
+        lineasInvalidas.clear();
+        File f = new File(path);
+        if (!f.exists()) {
+            return medicos;
+        }
+        ByteBuffer in = FormatoBinario.leer(f);
+        FormatoBinario.leerCabecera(in, FormatoBinario.TIPO_MEDICOS, f);
+        int cantidad = FormatoBinario.leerVarInt(in);
+        for (int i = 0; i < cantidad; i++) {
+            String cedula = FormatoBinario.leerTexto(in);
+            String nombre = FormatoBinario.leerTexto(in);
+            String apellido = FormatoBinario.leerTexto(in);
+            EnumEspecialidad especialidad = ESPECIALIDADES[in.get()];
+            String telefono = FormatoBinario.leerTexto(in);
+            medicos.add(new Medico(cedula, nombre, apellido, especialidad, telefono));
+        }
+        lineasInvalidas.addAll(FormatoBinario.leerTextos(in));
+        return medicos;
+    }
+
+    /**
+     * Indica si existe el archivo binario de médicos.
+     *
+     * @return true si el archivo existe
+     */
+    public boolean existe() {
+        return new File(path).exists();
+    }
+
+    public List<String> getLineasInvalidas() {
+        return lineasInvalidas;
+    }
+
+    public void setLineasInvalidas(List<String> lineas) {
+        this.lineasInvalidas = new ArrayList<>(lineas);
+    }
+}
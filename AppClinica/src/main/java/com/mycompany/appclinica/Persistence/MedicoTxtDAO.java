@@ -8,20 +8,18 @@ import com.mycompany.appclinica.Models.EnumEspecialidad;
 import com.mycompany.appclinica.Models.Medico;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class MedicoTxtDAO {
 
-    private final String path = "src/main/resources/data/medicos.txt";
+    private final String path = ConfiguracionPersistencia.DIRECTORIO_DATOS + "/medicos.txt";
     private List<String> lineasInvalidas = new ArrayList<>();
 
     public void guardar(List<Medico> medicos) throws IOException {
-        File f = new File(path);
-        File parent = f.getParentFile();
-        if (parent != null) {
-            parent.mkdirs();
-        }
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(f))) {
+        // Se escribe en un temporal y se reemplaza el archivo al final, para no perder datos si falla
+        EscrituraAtomica.reemplazar(new File(path), writer -> {
             for (Medico medico : medicos) {
                 String nombre = sanitize(medico.getNombre());
                 String apellido = sanitize(medico.getApellido());
@@ -34,7 +32,7 @@ public class MedicoTxtDAO {
                 writer.write(invalida);
                 writer.newLine();
             }
-        }
+        });
     }
 
     public List<Medico> cargar() throws IOException {
@@ -44,50 +42,68 @@ public class MedicoTxtDAO {
         if (!f.exists()) {
             return medicos;
         }
-        try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
-            String linea;
-            int lineaNum = 0;
-            while ((linea = reader.readLine()) != null) {
-                lineaNum++;
-                String[] partes = linea.split(",");
-                if (partes.length != 5) {
-                    System.err.println("MEDICO: Linea " + lineaNum + " ignorada: formato incorrecto (" + linea + ")");
-                    lineasInvalidas.add(linea);
-                    continue;
-                }
-                try {
-                    EnumEspecialidad especialidad = EnumEspecialidad.valueOf(partes[3]);
-                    Medico medico = new Medico(partes[0], partes[1], partes[2], especialidad, partes[4]);
-                    medicos.add(medico);
-                } catch (IllegalArgumentException e) {
-                    System.err.println("MEDICO: Error en linea " + lineaNum + " (" + linea + "): especialidad invalida");
-                    lineasInvalidas.add(linea);
-                } catch (Exception e) {
-                    System.err.println("MEDICO: Error en linea " + lineaNum + " (" + linea + "): " +
-                        e.getClass().getSimpleName() + " - " + e.getMessage());
-                    lineasInvalidas.add(linea);
-                }
+        // Lectura por bloques de bytes: los campos se separan sin regex ni arreglos por línea
+        LectorTxt.recorrer(f, linea -> {
+            if (linea.cantidadCampos() != 5) {
+                System.err.println("MEDICO: Linea " + linea.getNumero() + " ignorada: formato incorrecto (" + linea.linea() + ")");
+                lineasInvalidas.add(linea.linea());
+                return;
             }
-        }
+            try {
+                EnumEspecialidad especialidad = EnumEspecialidad.valueOf(linea.texto(3));
+                Medico medico = new Medico(linea.texto(0), linea.texto(1), linea.texto(2), especialidad, linea.texto(4));
+                medicos.add(medico);
+            } catch (IllegalArgumentException e) {
+                System.err.println("MEDICO: Error en linea " + linea.getNumero() + " (" + linea.linea() + "): especialidad invalida");
+                lineasInvalidas.add(linea.linea());
+            } catch (Exception e) {
+                System.err.println("MEDICO: Error en linea " + linea.getNumero() + " (" + linea.linea() + "): " +
+                    e.getClass().getSimpleName() + " - " + e.getMessage());
+                lineasInvalidas.add(linea.linea());
+            }
+        });
         return medicos;
     }
     
-    public List<String> obtenerTodasLasCedulasIncluidoInvalidos() throws IOException {
-        List<String> cedulas = new ArrayList<>();
-        File f = new File(path);
-        if (!f.exists()) return cedulas;
-        try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
-            String linea;
-            while ((linea = reader.readLine()) != null) {
-                String[] partes = linea.split(",");
-                if (partes.length > 0 && !partes[0].trim().isEmpty()) {
-                    cedulas.add(partes[0].trim());
-                }
+    /**
+     * Obtiene las cédulas de las líneas inválidas de la última carga. No lee
+     * el archivo: las líneas inválidas ya están en memoria y no cambian hasta
+     * la siguiente carga.
+     *
+     * @return Cédulas de las líneas inválidas, sin repetir
+     */
+    public Set<String> obtenerCedulasInvalidas() {
+        Set<String> cedulas = new HashSet<>();
+        for (String linea : lineasInvalidas) {
+            int coma = linea.indexOf(',');
+            String cedula = (coma < 0 ? linea : linea.substring(0, coma)).trim();
+            if (!cedula.isEmpty()) {
+                cedulas.add(cedula);
             }
         }
         return cedulas;
     }
     
+    /**
+     * Obtiene las líneas del archivo que no se pudieron interpretar en la
+     * última carga. Se conservan para no perderlas al guardar.
+     *
+     * @return Lista de líneas inválidas
+     */
+    public List<String> getLineasInvalidas() {
+        return lineasInvalidas;
+    }
+
+    /**
+     * Reemplaza las líneas inválidas que se escribirán al guardar (por
+     * ejemplo, al convertir desde otro formato).
+     *
+     * @param lineas Líneas inválidas a conservar
+     */
+    public void setLineasInvalidas(List<String> lineas) {
+        this.lineasInvalidas = new ArrayList<>(lineas);
+    }
+
     private String sanitize(String input) {
         if (input == null) return "";
         return input.replace(",", "").replace("\n", "").replace("\r", "");
@@ -0,0 +1,81 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+import com.mycompany.appclinica.Models.Paciente;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso a los pacientes guardados en el formato binario (pacientes.bin).
+ * Cada paciente se guarda como cédula, nombre, apellido y teléfono con largo
+ * prefijado, y la fecha de nacimiento como día desde la época (int). Las
+ * líneas inválidas del archivo de texto se conservan al final.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class PacienteBinDAO {
+
+    private final String path = ConfiguracionPersistencia.DIRECTORIO_DATOS + "/pacientes.bin";
+    private List<String> lineasInvalidas = new ArrayList<>();
+
+    public void guardar(List<Paciente> pacientes) throws IOException {
+        EscrituraAtomica.reemplazarBinario(new File(path), out -> {
+            FormatoBinario.escribirCabecera(out, FormatoBinario.TIPO_PACIENTES);
+            FormatoBinario.escribirVarInt(out, pacientes.size());
+            for (Paciente paciente : pacientes) {
+                FormatoBinario.escribirTexto(out, paciente.getCedula());
+                FormatoBinario.escribirTexto(out, paciente.getNombre());
+                FormatoBinario.escribirTexto(out, paciente.getApellido());
+                FormatoBinario.escribirTexto(out, paciente.getTelefono());
+                out.writeInt((int) paciente.getFechaNacimiento().toEpochDay());
+            }
+            FormatoBinario.escribirTextos(out, lineasInvalidas);
+        });
+    }
+
+    public List<Paciente> cargar() throws IOException {
+        List<Paciente> pacientes = new ArrayList<>();
+        lineasInvalidas.clear();
+        File f = new File(path);
+        if (!f.exists()) {
+            return pacientes;
+        }
+        ByteBuffer in = FormatoBinario.leer(f);
+        FormatoBinario.leerCabecera(in, FormatoBinario.TIPO_PACIENTES, f);
+        int cantidad = FormatoBinario.leerVarInt(in);
+        for (int i = 0; i < cantidad; i++) {
+            String cedula = FormatoBinario.leerTexto(in);
+            String nombre = FormatoBinario.leerTexto(in);
+            String apellido = FormatoBinario.leerTexto(in);
+            String telefono = FormatoBinario.leerTexto(in);
+            LocalDate fechaNacimiento = LocalDate.ofEpochDay(in.getInt());
+            pacientes.add(new Paciente(cedula, nombre, apellido, telefono, fechaNacimiento));
+        }
+        lineasInvalidas.addAll(FormatoBinario.leerTextos(in));
+        return pacientes;
+    }
+
+    /**
+     * Indica si existe el archivo binario de pacientes.
+     *
+     * @return true si el archivo existe
+     */
+    public boolean existe() {
+        return new File(path).exists();
+    }
+
+    public List<String> getLineasInvalidas() {
+        return lineasInvalidas;
+    }
+
+    public void setLineasInvalidas(List<String> lineas) {
+        this.lineasInvalidas = new ArrayList<>(lineas);
+    }
+}
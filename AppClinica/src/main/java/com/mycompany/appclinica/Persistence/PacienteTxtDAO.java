@@ -7,21 +7,19 @@ package com.mycompany.appclinica.Persistence;
 import com.mycompany.appclinica.Models.Paciente;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.time.LocalDate;
 
 public class PacienteTxtDAO {
 
-    private final String path = "src/main/resources/data/pacientes.txt";
+    private final String path = ConfiguracionPersistencia.DIRECTORIO_DATOS + "/pacientes.txt";
     private List<String> lineasInvalidas = new ArrayList<>();
 
     public void guardar(List<Paciente> pacientes) throws IOException {
-        File f = new File(path);
-        File parent = f.getParentFile();
-        if (parent != null) {
-            parent.mkdirs();
-        }
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(f))) {
+        // Se escribe en un temporal y se reemplaza el archivo al final, para no perder datos si falla
+        EscrituraAtomica.reemplazar(new File(path), writer -> {
             for (Paciente paciente : pacientes) {
                 // Sanitizar campos para evitar comas y caracteres especiales problemáticos
                 String nombre = sanitize(paciente.getNombre());
@@ -35,7 +33,7 @@ public class PacienteTxtDAO {
                 writer.write(invalida);
                 writer.newLine();
             }
-        }
+        });
     }
 
     public List<Paciente> cargar() throws IOException {
@@ -45,55 +43,73 @@ public class PacienteTxtDAO {
         if (!f.exists()) {
             return pacientes;
         }
-        try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
-            String linea;
-            int lineaNum = 0;
-            while ((linea = reader.readLine()) != null) {
-                lineaNum++;
-                String[] partes = linea.split(",");
-                if (partes.length != 5) {
-                    System.err.println("PACIENTE: Linea " + lineaNum + " ignorada: formato incorrecto (" + linea + ")");
-                    lineasInvalidas.add(linea);
-                    continue; // Ignorar línea inválida
-                }
-                try {
-                    // Validar y parsear fecha
-                    LocalDate fechaNacimiento = LocalDate.parse(partes[4]);
-                    Paciente paciente = new Paciente(
-                            partes[0],
-                            partes[1],
-                            partes[2],
-                            partes[3],
-                            fechaNacimiento
-                    );
-                    pacientes.add(paciente);
-                } catch (Exception e) {
-                    System.err.println("PACIENTE: Error en linea " + lineaNum + " (" + linea + "): " +
-                        e.getClass().getSimpleName() + " - " + e.getMessage());
-                    lineasInvalidas.add(linea);
-                    // Continuar con siguiente línea
-                }
+        // Lectura por bloques de bytes: los campos se separan sin regex ni arreglos por línea
+        LectorTxt.recorrer(f, linea -> {
+            if (linea.cantidadCampos() != 5) {
+                System.err.println("PACIENTE: Linea " + linea.getNumero() + " ignorada: formato incorrecto (" + linea.linea() + ")");
+                lineasInvalidas.add(linea.linea());
+                return; // Ignorar línea inválida
             }
-        }
+            try {
+                // Validar y parsear fecha
+                LocalDate fechaNacimiento = linea.fecha(4);
+                Paciente paciente = new Paciente(
+                        linea.texto(0),
+                        linea.texto(1),
+                        linea.texto(2),
+                        linea.texto(3),
+                        fechaNacimiento
+                );
+                pacientes.add(paciente);
+            } catch (Exception e) {
+                System.err.println("PACIENTE: Error en linea " + linea.getNumero() + " (" + linea.linea() + "): " +
+                    e.getClass().getSimpleName() + " - " + e.getMessage());
+                lineasInvalidas.add(linea.linea());
+                // Continuar con siguiente línea
+            }
+        });
         return pacientes;
     }
     
-    public List<String> obtenerTodasLasCedulasIncluidoInvalidos() throws IOException {
-        List<String> cedulas = new ArrayList<>();
-        File f = new File(path);
-        if (!f.exists()) return cedulas;
-        try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
-            String linea;
-            while ((linea = reader.readLine()) != null) {
-                String[] partes = linea.split(",");
-                if (partes.length > 0 && !partes[0].trim().isEmpty()) {
-                    cedulas.add(partes[0].trim());
-                }
+    /**
+     * Obtiene las cédulas de las líneas inválidas de la última carga. No lee
+     * el archivo: las líneas inválidas ya están en memoria y no cambian hasta
+     * la siguiente carga.
+     *
+     * @return Cédulas de las líneas inválidas, sin repetir
+     */
+    public Set<String> obtenerCedulasInvalidas() {
+        Set<String> cedulas = new HashSet<>();
+        for (String linea : lineasInvalidas) {
+            int coma = linea.indexOf(',');
+            String cedula = (coma < 0 ? linea : linea.substring(0, coma)).trim();
+            if (!cedula.isEmpty()) {
+                cedulas.add(cedula);
             }
         }
         return cedulas;
     }
     
+    /**
+     * Obtiene las líneas del archivo que no se pudieron interpretar en la
+     * última carga. Se conservan para no perderlas al guardar.
+     *
+     * @return Lista de líneas inválidas
+     */
+    public List<String> getLineasInvalidas() {
+        return lineasInvalidas;
+    }
+
+    /**
+     * Reemplaza las líneas inválidas que se escribirán al guardar (por
+     * ejemplo, al convertir desde otro formato).
+     *
+     * @param lineas Líneas inválidas a conservar
+     */
+    public void setLineasInvalidas(List<String> lineas) {
+        this.lineasInvalidas = new ArrayList<>(lineas);
+    }
+
     // Método para limpiar caracteres problemáticos
     private String sanitize(String input) {
            if (input == null) return "";
@@ -0,0 +1,45 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+/**
+ * Política para forzar los datos escritos al disco (fsync). Permite elegir,
+ * por despliegue, entre durabilidad y latencia de escritura.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public enum PoliticaSincronizacion {
+
+    SIEMPRE("Siempre"),
+    POR_LOTES("Por lotes"),
+    NUNCA("Nunca");
+
+    private final String descripcion;
+
+    /**
+     * Constructor del enum PoliticaSincronizacion.
+     * @param descripcion Nombre legible de la política
+     */
+    PoliticaSincronizacion(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * Retorna una representación en cadena de la política.
+     * @return Descripción de la política
+     */
+    @Override
+    public String toString() {
+        return this.descripcion;
+    }
+
+    /**
+     * Obtiene la descripción de la política.
+     * @return Descripción de la política
+     */
+    public String getDescripcion() {
+        return descripcion;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+import com.mycompany.appclinica.Models.EnumFrecuencia;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import com.mycompany.appclinica.Models.SerieCitas;
+import com.mycompany.appclinica.Services.MedicoService;
+import com.mycompany.appclinica.Services.PacienteService;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Archivo de series de citas. Cada serie ocupa una sola línea con su regla y
+ * sus excepciones, sin importar cuántas citas genere:
+ * {@code id,paciente,medico,inicio,frecuencia,intervalo,cantidad,canceladasDesde,motivo,excepciones}
+ * (las excepciones son índices de ocurrencia separados por ';').
+ */
+public class SerieTxtDAO {
+
+    private final String path = ConfiguracionPersistencia.DIRECTORIO_DATOS + "/series.txt";
+    private final PacienteService pacienteService;
+    private final MedicoService medicoService;
+    private final List<String> lineasInvalidas = new ArrayList<>();
+    private int maxNumeroLeido = 0;
+
+    public SerieTxtDAO(PacienteService pacienteService, MedicoService medicoService) {
+        this.pacienteService = pacienteService;
+        this.medicoService = medicoService;
+    }
+
+    /**
+     * Reescribe el archivo de series completo.
+     *
+     * @param series Series a guardar
+     * @throws IOException si ocurre un error de escritura
+     */
+    public synchronized void guardar(List<SerieCitas> series) throws IOException {
+        // Se escribe en un temporal y se reemplaza el archivo al final, para no perder datos si falla
+        EscrituraAtomica.reemplazar(new File(path), writer -> {
+            for (SerieCitas serie : series) {
+                writer.write(formatear(serie));
+                writer.newLine();
+            }
+            for (String invalida : lineasInvalidas) {
+                writer.write(invalida);
+                writer.newLine();
+            }
+        });
+    }
+
+    /**
+     * Carga las series del archivo. Las líneas que no se pueden interpretar
+     * se conservan para no perderlas al guardar.
+     *
+     * @return Series válidas en el orden del archivo
+     * @throws IOException si ocurre un error de lectura
+     */
+    public synchronized List<SerieCitas> cargar() throws IOException {
+        List<SerieCitas> series = new ArrayList<>();
+        lineasInvalidas.clear();
+        maxNumeroLeido = 0;
+        File f = new File(path);
+        if (!f.exists()) {
+            return series;
+        }
+        LectorTxt.recorrer(f, linea -> {
+            int numero = linea.enteroConPrefijo(0, SerieCitas.PREFIJO);
+            // Las líneas inválidas también reservan el número de su primera cita
+            maxNumeroLeido = Math.max(maxNumeroLeido, numero);
+            if (numero <= 0 || linea.cantidadCampos() < 8) {
+                System.err.println("SERIE: Linea " + linea.getNumero() + " ignorada: formato incorrecto (" + linea.linea() + ")");
+                lineasInvalidas.add(linea.linea());
+                return;
+            }
+            try {
+                Paciente paciente = pacienteService.buscarPorCedula(linea.texto(1)).orElse(null);
+                Medico medico = medicoService.buscarPorCedula(linea.texto(2)).orElse(null);
+                if (paciente == null || medico == null) {
+                    System.err.println("SERIE: Linea " + linea.getNumero() + " (" + linea.linea() + ") ignorada: paciente o medico no encontrado");
+                    lineasInvalidas.add(linea.linea());
+                    return;
+                }
+                int cantidad = Integer.parseInt(linea.texto(6));
+                SerieCitas serie = new SerieCitas(numero, paciente, medico,
+                        linea.cantidadCampos() > 8 ? linea.texto(8) : "",
+                        linea.fechaHora(3),
+                        EnumFrecuencia.valueOf(linea.texto(4)),
+                        Integer.parseInt(linea.texto(5)),
+                        cantidad,
+                        Integer.parseInt(linea.texto(7)),
+                        leerExcepciones(linea.cantidadCampos() > 9 ? linea.texto(9) : ""));
+                series.add(serie);
+                maxNumeroLeido = Math.max(maxNumeroLeido, numero + cantidad - 1);
+            } catch (Exception e) {
+                System.err.println("SERIE: Error en linea " + linea.getNumero() + " (" + linea.linea() + "): " +
+                    e.getClass().getSimpleName() + " - " + e.getMessage());
+                lineasInvalidas.add(linea.linea());
+            }
+        });
+        return series;
+    }
+
+    /**
+     * Obtiene el mayor número de cita reservado por las series de la última
+     * carga, incluyendo las líneas inválidas.
+     *
+     * @return Mayor número de cita reservado (0 si no hay)
+     */
+    public int getMaxNumeroLeido() {
+        return maxNumeroLeido;
+    }
+
+    private String formatear(SerieCitas serie) {
+        StringBuilder excepciones = new StringBuilder();
+        BitSet bits = serie.getExcepciones();
+        for (int k = bits.nextSetBit(0); k >= 0; k = bits.nextSetBit(k + 1)) {
+            if (excepciones.length() > 0) {
+                excepciones.append(';');
+            }
+            excepciones.append(k);
+        }
+        return serie.getId() + "," +
+            serie.getPaciente().getCedula() + "," +
+            serie.getMedico().getCedula() + "," +
+            serie.getInicio().toString() + "," +
+            serie.getFrecuencia().name() + "," +
+            serie.getIntervalo() + "," +
+            serie.getCantidad() + "," +
+            serie.getCanceladasDesde() + "," +
+            sanitize(serie.getMotivo()) + "," +
+            excepciones;
+    }
+
+    private BitSet leerExcepciones(String texto) {
+        BitSet excepciones = new BitSet();
+        for (String indice : texto.split(";")) {
+            if (!indice.trim().isEmpty()) {
+                excepciones.set(Integer.parseInt(indice.trim()));
+            }
+        }
+        return excepciones;
+    }
+
+    private String sanitize(String input) {
+        if (input == null) return "";
+        return input.replace(",", "").replace("\n", "").replace("\r", "");
+    }
+}
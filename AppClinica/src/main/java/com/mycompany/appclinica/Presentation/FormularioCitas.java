@@ -10,12 +10,15 @@ import com.mycompany.appclinica.Models.EnumEstadoCita;
 import com.mycompany.appclinica.Models.Medico;
 import com.mycompany.appclinica.Models.Paciente;
 import com.mycompany.appclinica.Services.CitaService;
+import com.mycompany.appclinica.Services.HuecoLibre;
 import java.util.List;
 import javax.swing.DefaultComboBoxModel;
 import com.mycompany.appclinica.Services.MedicoService;
 import com.mycompany.appclinica.Services.PacienteService;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Optional;
 import javax.swing.JOptionPane;
 
@@ -30,6 +33,9 @@ import javax.swing.JOptionPane;
 
 public class FormularioCitas extends javax.swing.JInternalFrame {
 
+    private static final int CANTIDAD_HORARIOS_LIBRES = 15;
+    private static final int DIAS_BUSQUEDA_HORARIOS = 60;
+
     private MedicoService medicoService;
     private CitaService citaService;
     private PacienteService pacienteService;
@@ -81,6 +87,7 @@ public class FormularioCitas extends javax.swing.JInternalFrame {
         txtFecha = new javax.swing.JTextField();
         labelHora = new javax.swing.JLabel();
         txtHora = new javax.swing.JTextField();
+        btnHorariosLibres = new javax.swing.JButton();
         labelEstado = new javax.swing.JLabel();
         comboBoxEstado = new javax.swing.JComboBox<>();
         labelMotivo = new javax.swing.JLabel();
@@ -166,6 +173,14 @@ public class FormularioCitas extends javax.swing.JInternalFrame {
             }
         });
 
+        btnHorariosLibres.setFont(new java.awt.Font("Segoe UI", 1, 12)); // NOI18N
+        btnHorariosLibres.setText("Horarios libres");
+        btnHorariosLibres.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnHorariosLibresActionPerformed(evt);
+            }
+        });
+
         labelEstado.setFont(new java.awt.Font("Segoe UI", 1, 12)); // NOI18N
         labelEstado.setForeground(new java.awt.Color(46, 71, 86));
         labelEstado.setText("Estado:");
@@ -265,7 +280,8 @@ public class FormularioCitas extends javax.swing.JInternalFrame {
                                     .addGap(60, 60, 60)
                                     .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                                         .addComponent(jLabel3)
-                                        .addComponent(txtHora, javax.swing.GroupLayout.PREFERRED_SIZE, 152, javax.swing.GroupLayout.PREFERRED_SIZE))
+                                        .addComponent(txtHora, javax.swing.GroupLayout.PREFERRED_SIZE, 152, javax.swing.GroupLayout.PREFERRED_SIZE)
+                                        .addComponent(btnHorariosLibres, javax.swing.GroupLayout.PREFERRED_SIZE, 152, javax.swing.GroupLayout.PREFERRED_SIZE))
                                     .addGap(105, 105, 105)))
                             .addGroup(layout.createSequentialGroup()
                                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
@@ -308,6 +324,8 @@ public class FormularioCitas extends javax.swing.JInternalFrame {
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jLabel3)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(btnHorariosLibres)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(labelEstado)
                     .addComponent(comboBoxEstado, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
@@ -334,24 +352,42 @@ public class FormularioCitas extends javax.swing.JInternalFrame {
             txtFecha.setText(cita.getFecha().toLocalDate().toString());
             txtHora.setText(cita.getFecha().toLocalTime().toString());
             txtMotivo.setText(cita.getMotivo());
-            comboBoxMedico.setSelectedItem(cita.getMedico().getNombre());
+            // Elegir la especialidad recarga los médicos; el de la cita se selecciona después
             comboBoxEspecialidades.setSelectedItem(cita.getMedico().getEspecialidad());
+            comboBoxMedico.setSelectedItem(cita.getMedico());
             comboBoxEstado.setSelectedItem(cita.getEstado());
         }
     }
 
     /**
-     * Carga las especialidades médicas en el comboBoxEspecialidades desde la
-     * enumeración.
+     * Carga los médicos de la especialidad en el comboBoxMedico. Al crear una
+     * cita, el más disponible va primero para el día escrito (o para hoy si
+     * no hay una fecha válida), de modo que las citas se repartan entre los
+     * médicos. Al editar no se recomienda: se conserva el médico de la cita.
      */
     private void cargarMedicosPorEspecialidad(EnumEspecialidad especialidad) {
         comboBoxMedico.removeAllItems();
-        List<Medico> medicosFiltrados = medicoService.buscarPorEspecialidad(especialidad);
+        List<Medico> medicosFiltrados;
+        if (cita == null) {
+            LocalDate dia = LocalDate.now();
+            try {
+                dia = LocalDate.parse(txtFecha.getText().trim());
+            } catch (DateTimeParseException e) {
+                // Sin una fecha válida se recomienda para hoy
+            }
+            medicosFiltrados = citaService.recomendarMedicos(especialidad, dia);
+        } else {
+            medicosFiltrados = medicoService.buscarPorEspecialidad(especialidad);
+        }
         for (Medico m : medicosFiltrados) {
             comboBoxMedico.addItem(m); // Si usas `toString()`, muestra nombre completo
         }
     }
 
+    /**
+     * Carga las especialidades médicas en el comboBoxEspecialidades desde la
+     * enumeración.
+     */
     private void cargarEspecialidades() {
         comboBoxEspecialidades.removeAllItems();
         for (EnumEspecialidad especialidad : EnumEspecialidad.values()) {
@@ -391,6 +427,45 @@ public class FormularioCitas extends javax.swing.JInternalFrame {
     private void txtHoraActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_txtHoraActionPerformed
         // TODO add your handling code here:
     }//GEN-LAST:event_txtHoraActionPerformed
+    /**
+     * Muestra los próximos horarios libres de la especialidad seleccionada, a
+     * partir de la fecha escrita (o de ahora si no hay una fecha válida), y
+     * llena la fecha, la hora y el médico con el horario elegido.
+     *
+     * @param evt evento de acción
+     */
+    private void btnHorariosLibresActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnHorariosLibresActionPerformed
+        EnumEspecialidad especialidad = (EnumEspecialidad) comboBoxEspecialidades.getSelectedItem();
+        if (especialidad == null) {
+            return;
+        }
+
+        LocalDateTime desde = LocalDateTime.now();
+        try {
+            LocalDateTime inicioFecha = LocalDate.parse(txtFecha.getText().trim()).atStartOfDay();
+            if (inicioFecha.isAfter(desde)) {
+                desde = inicioFecha;
+            }
+        } catch (DateTimeParseException e) {
+            // Sin una fecha válida se busca desde ahora
+        }
+
+        List<HuecoLibre> huecos = citaService.buscarHuecosLibres(especialidad, desde,
+                desde.plusDays(DIAS_BUSQUEDA_HORARIOS), CANTIDAD_HORARIOS_LIBRES);
+        if (huecos.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No hay horarios libres en los próximos " + DIAS_BUSQUEDA_HORARIOS + " días.",
+                    "Horarios libres", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        HuecoLibre elegido = (HuecoLibre) JOptionPane.showInputDialog(this, "Seleccione un horario:", "Horarios libres",
+                JOptionPane.QUESTION_MESSAGE, null, huecos.toArray(), huecos.get(0));
+        if (elegido != null) {
+            txtFecha.setText(elegido.getFecha().toLocalDate().toString());
+            txtHora.setText(elegido.getFecha().toLocalTime().toString());
+            comboBoxMedico.setSelectedItem(elegido.getMedico());
+        }
+    }//GEN-LAST:event_btnHorariosLibresActionPerformed
     /**
      * Acción para actualizar la lista de médicos mostrada al cambiar la
      * especialidad seleccionada. Consulta al servicio de médicos y actualiza
@@ -451,13 +526,9 @@ public class FormularioCitas extends javax.swing.JInternalFrame {
                 JOptionPane.showMessageDialog(this, "No se pudo registrar la cita. Verifica que no esté duplicada.", "Error", JOptionPane.ERROR_MESSAGE);
             }
         } else {
-            // Modo editar
-            cita.setPaciente(paciente);
-            cita.setMedico(medicoSeleccionado);
-            cita.setMotivo(motivo);
-            cita.setFecha(fechaHora);
-            cita.setEstado(estado);
-            boolean exito = citaService.actualizarCita(cita.getId(), cita);
+            // Modo editar: se envía una copia para que el servicio conozca el horario anterior
+            Cita citaEditada = new Cita(cita.getId(), paciente, medicoSeleccionado, motivo, estado, fechaHora);
+            boolean exito = citaService.actualizarCita(cita.getId(), citaEditada);
 
             if (exito) {
                 JOptionPane.showMessageDialog(this, "Cita editada exitosamente.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
@@ -497,6 +568,7 @@ public class FormularioCitas extends javax.swing.JInternalFrame {
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton btnCancelar;
     private javax.swing.JButton btnGuardar;
+    private javax.swing.JButton btnHorariosLibres;
     private javax.swing.JButton btnLimpiar;
     private javax.swing.JComboBox<EnumEspecialidad> comboBoxEspecialidades;
     private javax.swing.JComboBox<EnumEstadoCita> comboBoxEstado;
@@ -8,13 +8,9 @@ import com.mycompany.appclinica.Models.Cita;
 import com.mycompany.appclinica.Services.CitaService;
 import com.mycompany.appclinica.Services.MedicoService;
 import com.mycompany.appclinica.Services.PacienteService;
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import javax.swing.JOptionPane;
-import javax.swing.table.DefaultTableModel;
 
 /**
  * Interfaz de usuario para mostrar y gestionar la lista de citas médicas.
@@ -27,6 +23,7 @@ public class ListaCitas extends javax.swing.JInternalFrame {
     private CitaService citaService;
     private MedicoService medicoService;
     private PacienteService pacienteService;
+    private final ModeloTablaCitas modeloCitas = new ModeloTablaCitas();
     /**
      * Constructor de la ventana ListaCitas.
      * Inicializa los servicios y componentes gráficos.
@@ -40,6 +37,7 @@ public class ListaCitas extends javax.swing.JInternalFrame {
         this.medicoService = medicoService;
         this.pacienteService = pacienteService;
         initComponents();
+        tableListaCitas.setModel(modeloCitas);
     }
 
     /**
@@ -318,25 +316,13 @@ public class ListaCitas extends javax.swing.JInternalFrame {
     }//GEN-LAST:event_textFieldBuscar3ActionPerformed
     /**
      * Método para mostrar una lista de citas en la tabla.
-     * Limpia la tabla y agrega las citas con sus datos principales.
+     * La tabla lee las citas directamente de la lista y solo calcula los
+     * textos de las filas visibles.
      * 
      * @param citas Lista de citas a mostrar
      */
     public void mostrarCitas(List<Cita> citas) {
-        DefaultTableModel modelo = (DefaultTableModel) tableListaCitas.getModel();
-        modelo.setRowCount(0); // Limpiar filas
-        for (Cita c : citas) {
-            // Agregar cada cita en una fila con sus datos relevantes
-            modelo.addRow(new Object[]{
-                c.getId(),
-                c.getPaciente().getCedula() + " - " + c.getPaciente().getNombre(),
-                c.getMedico().getCedula() + " - " + c.getMedico().getNombre(),
-                c.getFecha(),
-                c.getEstado(),
-                c.getMotivo(),
-                c.getMedico().getEspecialidad()
-            });
-        }
+        modeloCitas.setDatos(citas);
     }
     /**
      * Acción para buscar citas filtrando por cédula de paciente o médico.
@@ -351,17 +337,8 @@ public class ListaCitas extends javax.swing.JInternalFrame {
             mostrarCitas(citaService.listarTodas());
             return;
         }
-        // Buscar citas por paciente y por médico
-        List<Cita> citasPaciente = citaService.buscarPorPaciente(cedula);
-        List<Cita> citasMedico = citaService.buscarPorMedico(cedula);
-
-        // Combinar resultados sin duplicados
-        Set<Cita> citasCombinadas = new LinkedHashSet<>();
-        citasCombinadas.addAll(citasPaciente);
-        citasCombinadas.addAll(citasMedico);
-
-        // Mostrar en tabla
-        mostrarCitas(new ArrayList<>(citasCombinadas));
+        // Buscar citas por paciente y por médico, sin duplicados
+        mostrarCitas(citaService.buscarPorParticipante(cedula));
     }//GEN-LAST:event_buttonBuscar3ActionPerformed
     /**
      * Acción para editar la cita seleccionada en la tabla.
@@ -10,7 +10,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import javax.swing.JOptionPane;
-import javax.swing.table.DefaultTableModel;
 
 /**
  * Interfaz gráfica para mostrar y gestionar la lista de médicos.
@@ -21,6 +20,7 @@ import javax.swing.table.DefaultTableModel;
  */
 public class ListaMedico extends javax.swing.JInternalFrame {
     private MedicoService medicoService;
+    private final ModeloTablaMedicos modeloMedicos = new ModeloTablaMedicos();
     /**
      * Constructor que inicializa la ventana con el servicio de médicos.
      * @param medicoService Servicio para gestión de médicos
@@ -28,6 +28,7 @@ public class ListaMedico extends javax.swing.JInternalFrame {
     public ListaMedico(MedicoService medicoService) {
         this.medicoService = medicoService;
         initComponents();
+        tableDatosMedicos.setModel(modeloMedicos);
     }
 
     /**
@@ -278,18 +279,7 @@ public class ListaMedico extends javax.swing.JInternalFrame {
             resultados = medicoService.buscarPorNombre(texto);
         }
 
-        DefaultTableModel model = (DefaultTableModel) tableDatosMedicos.getModel();
-        model.setRowCount(0);
-
-        for (Medico m : resultados) {
-            model.addRow(new Object[]{
-                m.getCedula(),
-                m.getNombre(),
-                m.getApellido(),
-                m.getTelefono(),
-                m.getEspecialidad()
-            });
-        }
+        modeloMedicos.setDatos(resultados);
         
         if (resultados.isEmpty()) {
             JOptionPane.showMessageDialog(this,
@@ -303,20 +293,7 @@ public class ListaMedico extends javax.swing.JInternalFrame {
      * @param evt evento de acción
      */
     private void buttonRefresacarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonRefresacarActionPerformed
-        DefaultTableModel model = (DefaultTableModel) tableDatosMedicos.getModel();
-        model.setRowCount(0);
-
-        List<Medico> todosMedicos = medicoService.listarTodos();
-
-        for (Medico m : todosMedicos) {
-            model.addRow(new Object[]{
-                m.getCedula(),
-                m.getNombre(),
-                m.getApellido(),
-                m.getTelefono(),
-                m.getEspecialidad()
-            });
-        }
+        modeloMedicos.setDatos(medicoService.listarTodos());
     }//GEN-LAST:event_buttonRefresacarActionPerformed
     /**
      * Elimina el médico seleccionado en la tabla.
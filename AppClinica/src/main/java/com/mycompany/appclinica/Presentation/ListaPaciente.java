@@ -12,8 +12,12 @@ import com.mycompany.appclinica.Services.PacienteService;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import javax.swing.JOptionPane;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 /**
  * Interfaz gráfica para gestionar la lista de pacientes.
@@ -27,6 +31,11 @@ public class ListaPaciente extends javax.swing.JInternalFrame {
     private PacienteService pacienteService;
     private MedicoService medicoService;
     private CitaService citaService;
+    private final ModeloTablaPacientes modeloPacientes = new ModeloTablaPacientes();
+    // Búsqueda mientras se escribe: espera una pausa en el tecleo antes de buscar
+    private static final int RETRASO_BUSQUEDA_MS = 300;
+    private final Timer temporizadorBusqueda = new Timer(RETRASO_BUSQUEDA_MS, e -> buscar(false));
+    private SwingWorker<List<Paciente>, Void> busquedaActual;
     /**
      * Constructor que inicializa la ventana con los servicios necesarios.
      * 
@@ -39,6 +48,91 @@ public class ListaPaciente extends javax.swing.JInternalFrame {
         this.medicoService = medicoService;
         this.citaService = citaService;
         initComponents();
+        tableDatosPaciente.setModel(modeloPacientes);
+        temporizadorBusqueda.setRepeats(false);
+        textFieldBuscar2.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                temporizadorBusqueda.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                temporizadorBusqueda.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                temporizadorBusqueda.restart();
+            }
+        });
+    }
+
+    /**
+     * Busca pacientes por cédula si el texto es numérico, o por nombre en otro
+     * caso. Ambas búsquedas se ejecutan en segundo plano y el resultado
+     * reemplaza la tabla al terminar; si llega una búsqueda nueva, la anterior
+     * se cancela y su resultado se descarta.
+     *
+     * @param avisarSinResultados true para mostrar un mensaje si no hay
+     * resultados (búsqueda con el botón)
+     */
+    private void buscar(boolean avisarSinResultados) {
+        cancelarBusqueda();
+        String texto = textFieldBuscar2.getText().trim();
+        if (texto.isEmpty()) {
+            modeloPacientes.setDatos(pacienteService.listarTodos());
+            return;
+        }
+        busquedaActual = new SwingWorker<List<Paciente>, Void>() {
+            @Override
+            protected List<Paciente> doInBackground() {
+                if (texto.matches("\\d+")) {
+                    // Si es solo números, buscar por cédula
+                    List<Paciente> resultados = new ArrayList<>();
+                    pacienteService.buscarPorCedula(texto).ifPresent(resultados::add);
+                    return resultados;
+                }
+                // Sino buscar por nombre
+                return pacienteService.buscarPorNombre(texto);
+            }
+
+            @Override
+            protected void done() {
+                if (busquedaActual != this || isCancelled()) {
+                    return; // Ya la reemplazó una búsqueda más reciente
+                }
+                busquedaActual = null;
+                List<Paciente> resultados;
+                try {
+                    resultados = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error buscando pacientes: " + e.getMessage());
+                    return;
+                }
+                modeloPacientes.setDatos(resultados);
+                if (avisarSinResultados && resultados.isEmpty()) {
+                    avisarSinResultados();
+                }
+            }
+        };
+        busquedaActual.execute();
+    }
+
+    private void cancelarBusqueda() {
+        temporizadorBusqueda.stop();
+        if (busquedaActual != null) {
+            busquedaActual.cancel(true);
+            busquedaActual = null;
+        }
+    }
+
+    private void avisarSinResultados() {
+        JOptionPane.showMessageDialog(
+            this,
+            "No se encontró ningún paciente con ese criterio.",
+            "Sin resultados", JOptionPane.INFORMATION_MESSAGE
+        );
     }
 
     /**
@@ -433,40 +527,7 @@ public class ListaPaciente extends javax.swing.JInternalFrame {
             return;
         }
 
-        
-        List<Paciente> resultados;
-        if (texto.matches("\\d+")) {
-            // Si es solo números, buscar por cédula
-            Optional<Paciente> p = pacienteService.buscarPorCedula(texto);
-            resultados = new ArrayList<>();
-            if (p.isPresent()) {
-                resultados.add(p.get());
-            }
-        } else {
-            // Sino buscar por nombre
-            resultados = pacienteService.buscarPorNombre(texto);
-        }
-
-        DefaultTableModel model = (DefaultTableModel) tableDatosPaciente.getModel();
-        model.setRowCount(0);
-
-        for (Paciente p : resultados) {
-            model.addRow(new Object[]{
-                p.getCedula(),
-                p.getNombre(),
-                p.getApellido(),
-                p.getTelefono(),
-                p.getFechaNacimiento()
-            });
-        }
-        
-        if (resultados.isEmpty()) {
-        JOptionPane.showMessageDialog(
-            this,
-            "No se encontró ningún paciente con ese criterio.",
-            "Sin resultados", JOptionPane.INFORMATION_MESSAGE
-        );
-        }
+        buscar(true);
     }//GEN-LAST:event_buttonBuscar2ActionPerformed
     /**
      * Refresca la tabla para mostrar todos los pacientes registrados.
@@ -474,20 +535,8 @@ public class ListaPaciente extends javax.swing.JInternalFrame {
      * @param evt evento de acción
      */
     private void buttonRefresacar2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonRefresacar2ActionPerformed
-        DefaultTableModel model = (DefaultTableModel) tableDatosPaciente.getModel();
-        model.setRowCount(0);
-
-        List<Paciente> todosPacientes = pacienteService.listarTodos();
-
-        for (Paciente p : todosPacientes) {
-            model.addRow(new Object[]{
-                p.getCedula(),
-                p.getNombre(),
-                p.getApellido(),
-                p.getTelefono(),
-                p.getFechaNacimiento()
-            });
-        }
+        cancelarBusqueda();
+        modeloPacientes.setDatos(pacienteService.listarTodos());
     }//GEN-LAST:event_buttonRefresacar2ActionPerformed
     /**
      * Permite ver las citas del paciente seleccionado.
@@ -497,6 +546,10 @@ public class ListaPaciente extends javax.swing.JInternalFrame {
      * @param evt evento de acción
      */
     private void buttonVerCitasActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonVerCitasActionPerformed
+        if (citaService == null) {
+            JOptionPane.showMessageDialog(this, "No se pudieron cargar las citas.");
+            return;
+        }
         int fila = tableDatosPaciente.getSelectedRow();
         if (fila != -1) {
             String cedula = tableDatosPaciente.getValueAt(fila, 0).toString();
@@ -0,0 +1,41 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Presentation;
+
+import com.mycompany.appclinica.Models.Cita;
+
+/**
+ * Modelo de la tabla de citas.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+class ModeloTablaCitas extends ModeloTablaLista<Cita> {
+
+    private static final long serialVersionUID = 1L;
+
+    ModeloTablaCitas() {
+        super("ID", "Paciente", "Médico", "Fecha", "Estado", "Motivo", "Especialidad");
+    }
+
+    @Override
+    protected Object valor(Cita c, int columna) {
+        switch (columna) {
+            case 0:
+                return c.getId();
+            case 1:
+                return c.getPaciente().getCedula() + " - " + c.getPaciente().getNombre();
+            case 2:
+                return c.getMedico().getCedula() + " - " + c.getMedico().getNombre();
+            case 3:
+                return c.getFecha();
+            case 4:
+                return c.getEstado();
+            case 5:
+                return c.getMotivo();
+            default:
+                return c.getMedico().getEspecialidad();
+        }
+    }
+}
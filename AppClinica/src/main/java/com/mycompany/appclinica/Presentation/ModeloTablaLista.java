@@ -0,0 +1,83 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Presentation;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de tabla de solo lectura que muestra directamente una lista de
+ * objetos. No copia los datos en filas: cada celda se calcula cuando la tabla
+ * la pinta, así que solo se procesan las filas visibles. Cambiar la lista
+ * dispara un único evento para toda la tabla.
+ *
+ * @param <T> Tipo de objeto de cada fila
+ * @author Juan Moscoso y Slleider Rojas
+ */
+abstract class ModeloTablaLista<T> extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String[] columnas;
+    private List<T> filas = new ArrayList<>();
+
+    /**
+     * @param columnas Títulos de las columnas
+     */
+    ModeloTablaLista(String... columnas) {
+        this.columnas = columnas;
+    }
+
+    /**
+     * Calcula el valor de una celda.
+     *
+     * @param fila Objeto de la fila
+     * @param columna Índice de la columna
+     * @return Valor a mostrar
+     */
+    protected abstract Object valor(T fila, int columna);
+
+    /**
+     * Reemplaza los datos mostrados. La lista no se copia, por lo que no debe
+     * modificarse después (los servicios ya entregan copias).
+     *
+     * @param datos Objetos a mostrar, uno por fila
+     */
+    public void setDatos(List<T> datos) {
+        this.filas = datos == null ? new ArrayList<>() : datos;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Obtiene el objeto mostrado en una fila.
+     *
+     * @param fila Índice de la fila en el modelo
+     * @return Objeto de la fila
+     */
+    public T getElemento(int fila) {
+        return filas.get(fila);
+    }
+
+    @Override
+    public int getRowCount() {
+        return filas.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnas.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return columnas[columna];
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        return valor(filas.get(fila), columna);
+    }
+}
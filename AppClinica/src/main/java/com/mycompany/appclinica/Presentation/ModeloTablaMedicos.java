@@ -0,0 +1,37 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Presentation;
+
+import com.mycompany.appclinica.Models.Medico;
+
+/**
+ * Modelo de la tabla de médicos.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+class ModeloTablaMedicos extends ModeloTablaLista<Medico> {
+
+    private static final long serialVersionUID = 1L;
+
+    ModeloTablaMedicos() {
+        super("Cédula", "Nombre", "Apellido", "Teléfono", "Especialidad");
+    }
+
+    @Override
+    protected Object valor(Medico m, int columna) {
+        switch (columna) {
+            case 0:
+                return m.getCedula();
+            case 1:
+                return m.getNombre();
+            case 2:
+                return m.getApellido();
+            case 3:
+                return m.getTelefono();
+            default:
+                return m.getEspecialidad();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Presentation;
+
+import com.mycompany.appclinica.Models.Paciente;
+
+/**
+ * Modelo de la tabla de pacientes.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+class ModeloTablaPacientes extends ModeloTablaLista<Paciente> {
+
+    private static final long serialVersionUID = 1L;
+
+    ModeloTablaPacientes() {
+        super("Cédula", "Nombre", "Apellido", "Teléfono", "Fecha de Nacimiento");
+    }
+
+    @Override
+    protected Object valor(Paciente p, int columna) {
+        switch (columna) {
+            case 0:
+                return p.getCedula();
+            case 1:
+                return p.getNombre();
+            case 2:
+                return p.getApellido();
+            case 3:
+                return p.getTelefono();
+            default:
+                return p.getFechaNacimiento();
+        }
+    }
+}
@@ -7,7 +7,15 @@ package com.mycompany.appclinica.Presentation;
 import com.mycompany.appclinica.Services.CitaService;
 import com.mycompany.appclinica.Services.MedicoService;
 import com.mycompany.appclinica.Services.PacienteService;
+import com.mycompany.appclinica.Services.PersistenciaDiferida;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JInternalFrame;
 import javax.swing.JOptionPane;
+import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
 
 /**
  *
@@ -20,17 +28,172 @@ import javax.swing.JOptionPane;
  */
 public class VentanaPrincipal extends javax.swing.JFrame {
     
-    // Servicios para gestionar pacientes, médicos y citas
-
-    private PacienteService pacienteService = new PacienteService();
-    private MedicoService medicoService = new MedicoService();
-    private CitaService citaService = new CitaService(pacienteService, medicoService);
+    // Servicios para gestionar pacientes, médicos y citas (se cargan en segundo plano)
+
+    private PacienteService pacienteService;
+    private MedicoService medicoService;
+    private CitaService citaService;
+    private JInternalFrame ventanaCarga;
+    private JProgressBar barraCarga;
+    private int cargasTerminadas = 0;
+    private static final int TOTAL_CARGAS = 3;
+    private static final int INTERVALO_ESTADO_GUARDADO_MS = 1000;
+    private static final Color COLOR_AVISO = new Color(255, 200, 80);
     /**
      * Crea una nueva instancia de VentanaPrincipal.
-     * Inicializa los componentes gráficos y la configuración inicial.
+     * Inicializa los componentes gráficos y empieza a cargar los datos sin
+     * bloquear la ventana.
      */
     public VentanaPrincipal() {
         initComponents();
+        iniciarCarga();
+        iniciarAvisoGuardado();
+    }
+
+    /**
+     * Revisa cada segundo si algún guardado en segundo plano falló y lo
+     * muestra en la barra de estado, para que el usuario sepa que hay cambios
+     * que todavía no están en disco. El aviso desaparece cuando un reintento
+     * termina bien.
+     */
+    private void iniciarAvisoGuardado() {
+        String textoNormal = labelStatus.getText();
+        Color colorNormal = labelStatus.getForeground();
+        new javax.swing.Timer(INTERVALO_ESTADO_GUARDADO_MS, e -> {
+            List<String> avisos = new ArrayList<>();
+            agregarAviso(avisos, pacienteService != null ? pacienteService.getPersistencia() : null);
+            agregarAviso(avisos, medicoService != null ? medicoService.getPersistencia() : null);
+            agregarAviso(avisos, citaService != null ? citaService.getPersistencia() : null);
+            agregarAviso(avisos, citaService != null ? citaService.getPersistenciaSeries() : null);
+            labelStatus.setText(avisos.isEmpty() ? textoNormal : String.join(" | ", avisos));
+            labelStatus.setForeground(avisos.isEmpty() ? colorNormal : COLOR_AVISO);
+        }).start();
+    }
+
+    private static void agregarAviso(List<String> avisos, PersistenciaDiferida persistencia) {
+        if (persistencia != null && persistencia.getUltimoError() != null) {
+            avisos.add("Cambios de " + persistencia.getNombre() + " sin guardar ("
+                    + persistencia.getUltimoError() + "), reintentando...");
+        }
+    }
+
+    /**
+     * Carga los datos en hilos de fondo para que la ventana aparezca de
+     * inmediato. Pacientes y médicos se leen en paralelo; las citas, que
+     * necesitan a ambos, se cargan cuando los dos terminan. Los menús se
+     * habilitan al terminar todo: la carga de citas va llenando las listas de
+     * citas de cada paciente y médico, y esas pantallas las leen.
+     */
+    private void iniciarCarga() {
+        menuItemGestionPaciente.setEnabled(false);
+        menuItemGestionMedico.setEnabled(false);
+        menuItemGestionCita.setEnabled(false);
+        mostrarVentanaCarga();
+
+        new SwingWorker<PacienteService, Void>() {
+            @Override
+            protected PacienteService doInBackground() {
+                return new PacienteService();
+            }
+
+            @Override
+            protected void done() {
+                pacienteService = resultado(this, "pacientes");
+                cargaTerminada();
+            }
+        }.execute();
+
+        new SwingWorker<MedicoService, Void>() {
+            @Override
+            protected MedicoService doInBackground() {
+                return new MedicoService();
+            }
+
+            @Override
+            protected void done() {
+                medicoService = resultado(this, "médicos");
+                cargaTerminada();
+            }
+        }.execute();
+    }
+
+    private void cargarCitas() {
+        new SwingWorker<CitaService, Void>() {
+            @Override
+            protected CitaService doInBackground() {
+                return new CitaService(pacienteService, medicoService);
+            }
+
+            @Override
+            protected void done() {
+                citaService = resultado(this, "citas");
+                cargaTerminada();
+            }
+        }.execute();
+    }
+
+    /**
+     * Registra el fin de una carga (en el hilo de eventos), avanza la barra
+     * de progreso y lanza la carga de citas cuando ya están pacientes y
+     * médicos.
+     */
+    private void cargaTerminada() {
+        cargasTerminadas++;
+        barraCarga.setValue(cargasTerminadas);
+        if (cargasTerminadas == 2) {
+            if (pacienteService != null && medicoService != null) {
+                barraCarga.setString("Cargando citas...");
+                cargarCitas();
+                return;
+            }
+            cargasTerminadas = TOTAL_CARGAS; // Sin pacientes o médicos no se pueden cargar citas
+        }
+        if (cargasTerminadas >= TOTAL_CARGAS) {
+            ventanaCarga.dispose();
+            habilitarMenus();
+        }
+    }
+
+    /**
+     * Habilita los menús cuyos datos se cargaron. Se llama una sola vez, al
+     * terminar todas las cargas, cuando ningún hilo de fondo sigue
+     * modificando las listas de citas de pacientes y médicos.
+     */
+    private void habilitarMenus() {
+        // La lista de pacientes también usa médicos (para ver citas), por eso necesita a ambos
+        menuItemGestionPaciente.setEnabled(pacienteService != null && medicoService != null);
+        menuItemGestionMedico.setEnabled(medicoService != null);
+        menuItemGestionCita.setEnabled(citaService != null);
+    }
+
+    private void mostrarVentanaCarga() {
+        barraCarga = new JProgressBar(0, TOTAL_CARGAS);
+        barraCarga.setStringPainted(true);
+        barraCarga.setString("Cargando pacientes y médicos...");
+        ventanaCarga = new JInternalFrame("Cargando datos");
+        ventanaCarga.add(barraCarga);
+        ventanaCarga.setSize(320, 70);
+        desktopPane.add(ventanaCarga);
+        ventanaCarga.setLocation((desktopPane.getWidth() - ventanaCarga.getWidth()) / 2,
+                (desktopPane.getHeight() - ventanaCarga.getHeight()) / 2);
+        ventanaCarga.setVisible(true);
+    }
+
+    /**
+     * Obtiene el servicio creado por una carga. Si falló, informa al usuario
+     * y retorna null, dejando deshabilitado el menú correspondiente.
+     */
+    private <T> T resultado(SwingWorker<T, Void> carga, String datos) {
+        try {
+            return carga.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error cargando " + datos + ": " + e.getCause());
+            JOptionPane.showMessageDialog(this, "No se pudieron cargar los " + datos + ".",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        return null;
     }
 
     /**
@@ -5,28 +5,66 @@
 package com.mycompany.appclinica.Services;
 
 import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.EnumEspecialidad;
 import com.mycompany.appclinica.Models.EnumEstadoCita;
+import com.mycompany.appclinica.Models.EnumResultadoAgenda;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import com.mycompany.appclinica.Models.SerieCitas;
 import com.mycompany.appclinica.Persistence.CitaTxtDAO;
+import com.mycompany.appclinica.Persistence.SerieTxtDAO;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Servicio para gestionar operaciones CRUD de Citas. Aplica el principio de
  * Responsabilidad Única (SRP): Solo se encarga de la lógica de negocio
- * relacionada con citas médicas.
+ * relacionada con citas médicas. Es seguro usarlo desde varios hilos.
  *
  * @author Juan Moscoso y Slleider Rojas
  */
 public class CitaService {
 
+    // Cada escritura de la secuencia reserva este margen de números por delante
+    private static final int BLOQUE_SECUENCIA = 100;
+
     private final CitaTxtDAO dao;
+    private final SerieTxtDAO seriesDao;
     private final List<Cita> citas;
+    // Número de la primera cita de cada serie -> serie
+    private final TreeMap<Integer, SerieCitas> series = new TreeMap<>();
     private final PacienteService pacienteService;
     private final MedicoService medicoService;
+    private final IndiceHorarios indiceHorarios = new IndiceHorarios();
+    private final IndiceFechas indiceFechas = new IndiceFechas();
+    private final IndiceParticipantes indiceParticipantes = new IndiceParticipantes();
+    private final IndiceEstados indiceEstados = new IndiceEstados();
+    private final IndiceIds indiceIds = new IndiceIds();
+    private final IndiceCargaMedicos indiceCarga = new IndiceCargaMedicos();
+    private final GeneradorIdCitas generadorId;
+    // Mayor número cubierto por la secuencia guardada
+    private int secuenciaGuardada;
+    private final PersistenciaDiferida persistencia;
+    private final PersistenciaDiferida persistenciaSeries;
+    // Protege la lista y los índices: lecturas compartidas y escrituras
+    // exclusivas. No es reentrante, así que con el cerrojo tomado solo se
+    // llaman métodos privados que no lo vuelven a pedir.
+    private final StampedLock cerrojo = new StampedLock();
+    // Hilo que tiene el cerrojo de escritura, para que el observador de
+    // estado sepa si el cambio viene del propio servicio
+    private volatile Thread escritor;
 
     /**
      * Constructor que inicializa el servicio de citas. Requiere los servicios
@@ -46,13 +84,336 @@ public class CitaService {
             cargadas = new ArrayList<>();
         }
         this.citas = cargadas;
+        this.seriesDao = new SerieTxtDAO(pacienteService, medicoService);
+        List<SerieCitas> seriesCargadas;
+        try {
+            seriesCargadas = seriesDao.cargar();
+        } catch (IOException e) {
+            seriesCargadas = new ArrayList<>();
+        }
+        this.persistencia = new PersistenciaDiferida("citas", this::guardarCopia);
+        this.persistenciaSeries = new PersistenciaDiferida("series", this::guardarSeries);
+        // Se toma el mayor entre lo guardado y lo leído por si el archivo se editó a mano
+        this.secuenciaGuardada = dao.leerSecuencia();
+        this.generadorId = new GeneradorIdCitas(Math.max(secuenciaGuardada,
+                Math.max(dao.getMaxNumeroLeido(), seriesDao.getMaxNumeroLeido())));
+        for (Cita c : cargadas) {
+            indexar(c);
+        }
+        indexarLineasInvalidas();
+        // Las series se expanden al final: las ocurrencias con registro propio ya están indexadas
+        for (SerieCitas serie : seriesCargadas) {
+            series.put(serie.getNumero(), serie);
+            expandir(serie);
+        }
+    }
+
+    /**
+     * Interpreta una sola vez las líneas inválidas del archivo y registra sus
+     * horarios en el índice, para que sigan bloqueando la agenda del médico.
+     */
+    private void indexarLineasInvalidas() {
+        for (String linea : dao.lineasInvalidas) {
+            String[] partes = linea.split(",");
+            if (partes.length < 4) continue;
+            String cedMedicoInv = partes[2].trim();
+            try {
+                indiceHorarios.agregar(cedMedicoInv, LocalDateTime.parse(partes[3].trim()), null);
+            } catch (Exception e) {
+                // Si la fecha no se puede analizar, es seguro asumir conflicto para evitar duplicados erróneos
+                indiceHorarios.marcarFechaIlegible(cedMedicoInv);
+            }
+        }
+    }
+
+    /**
+     * Registra una cita en todos los índices y empieza a observar sus cambios
+     * de estado.
+     *
+     * @param cita Cita a registrar
+     */
+    private void indexar(Cita cita) {
+        indiceIds.agregar(cita);
+        indexarHorario(cita);
+        indiceFechas.agregar(cita.getFecha(), cita);
+        indiceParticipantes.agregar(cita);
+        indiceEstados.agregar(cita);
+        if (IndiceParticipantes.esActiva(cita.getEstado())) {
+            indiceCarga.agregar(cita.getMedico().getCedula(), cita.getFecha());
+        }
+        cita.setObservadorEstado(this::estadoCambiado);
+    }
+
+    /**
+     * Quita una cita de todos los índices y deja de observarla.
+     *
+     * @param cita Cita a quitar
+     */
+    private void desindexar(Cita cita) {
+        cita.setObservadorEstado(null);
+        desindexarHorario(cita, cita.getFecha(), cita.getEstado());
+        indiceFechas.quitar(cita.getFecha(), cita);
+        indiceParticipantes.quitar(cita);
+        indiceEstados.quitar(cita);
+        indiceIds.quitar(cita);
+        if (IndiceParticipantes.esActiva(cita.getEstado())) {
+            indiceCarga.quitar(cita.getMedico().getCedula(), cita.getFecha());
+        }
+    }
+
+    /**
+     * Recibe los cambios de estado de las citas indexadas, ya sea desde este
+     * servicio o llamando directamente a sus métodos (confirmar, cancelar,
+     * setEstado, ...). Los cambios del servicio ya tienen el cerrojo de
+     * escritura; los de afuera lo toman aquí antes de tocar los índices.
+     *
+     * @param cita Cita que cambió de estado
+     * @param estadoAnterior Estado que tenía antes del cambio
+     */
+    private void estadoCambiado(Cita cita, EnumEstadoCita estadoAnterior) {
+        if (escritor == Thread.currentThread()) {
+            reindexarEstado(cita, estadoAnterior);
+            return;
+        }
+        escribir(() -> {
+            // Otro hilo pudo eliminar la cita mientras se esperaba el cerrojo
+            if (indiceEstados.contiene(cita, estadoAnterior)) {
+                reindexarEstado(cita, estadoAnterior);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Actualiza los índices que dependen del estado de una cita; quien llama
+     * tiene el cerrojo de escritura.
+     *
+     * @param cita Cita que cambió de estado
+     * @param estadoAnterior Estado que tenía antes del cambio
+     */
+    private void reindexarEstado(Cita cita, EnumEstadoCita estadoAnterior) {
+        if (cita.getEstado() == EnumEstadoCita.CANCELADA) {
+            desindexarHorario(cita, cita.getFecha(), estadoAnterior);
+        } else if (estadoAnterior == EnumEstadoCita.CANCELADA) {
+            indexarHorario(cita);
+        }
+        indiceParticipantes.cambiarEstado(cita, estadoAnterior);
+        indiceEstados.mover(cita, estadoAnterior);
+        boolean eraActiva = IndiceParticipantes.esActiva(estadoAnterior);
+        if (IndiceParticipantes.esActiva(cita.getEstado()) != eraActiva) {
+            if (eraActiva) {
+                indiceCarga.quitar(cita.getMedico().getCedula(), cita.getFecha());
+            } else {
+                indiceCarga.agregar(cita.getMedico().getCedula(), cita.getFecha());
+            }
+        }
+    }
+
+    /**
+     * Registra el horario de una cita en el índice si no está cancelada.
+     *
+     * @param cita Cita a registrar
+     */
+    private void indexarHorario(Cita cita) {
+        if (cita.getEstado() != EnumEstadoCita.CANCELADA) {
+            indiceHorarios.agregar(cita.getMedico().getCedula(), cita.getFecha(), cita.getId());
+        }
     }
 
+    /**
+     * Libera del índice el horario que ocupaba una cita.
+     *
+     * @param cita Cita a liberar
+     * @param fecha Fecha con la que estaba registrada
+     * @param estado Estado con el que estaba registrada
+     */
+    private void desindexarHorario(Cita cita, LocalDateTime fecha, EnumEstadoCita estado) {
+        if (estado != EnumEstadoCita.CANCELADA) {
+            indiceHorarios.quitar(cita.getMedico().getCedula(), fecha, cita.getId());
+        }
+    }
+
+    /**
+     * Ejecuta una consulta con el cerrojo de lectura tomado.
+     *
+     * @param lectura Consulta a ejecutar
+     * @return Resultado de la consulta
+     */
+    private <R> R leer(Supplier<R> lectura) {
+        long sello = cerrojo.readLock();
+        try {
+            return lectura.get();
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Ejecuta una modificación con el cerrojo de escritura tomado.
+     *
+     * @param escritura Modificación a ejecutar
+     * @return Resultado de la modificación
+     */
+    private <R> R escribir(Supplier<R> escritura) {
+        long sello = cerrojo.writeLock();
+        escritor = Thread.currentThread();
+        try {
+            return escritura.get();
+        } finally {
+            escritor = null;
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Solicita guardar todas las citas en segundo plano. Varias solicitudes
+     * seguidas se agrupan en un único guardado.
+     */
     public void persistir() {
+        persistencia.solicitar();
+    }
+
+    /**
+     * Guarda de inmediato los cambios pendientes y espera a que terminen.
+     *
+     * @param timeoutMs Tiempo máximo de espera en milisegundos
+     * @return true si no quedó nada pendiente
+     */
+    public boolean vaciarPendientes(long timeoutMs) {
+        boolean citasGuardadas = persistencia.vaciar(timeoutMs);
+        return persistenciaSeries.vaciar(timeoutMs) && citasGuardadas;
+    }
+
+    /**
+     * Obtiene el persistidor en segundo plano, que informa solicitudes
+     * pendientes y latencia de guardado.
+     *
+     * @return Persistidor del servicio
+     */
+    public PersistenciaDiferida getPersistencia() {
+        return persistencia;
+    }
+
+    /**
+     * Obtiene el persistidor en segundo plano del archivo de series.
+     *
+     * @return Persistidor de las series
+     */
+    public PersistenciaDiferida getPersistenciaSeries() {
+        return persistenciaSeries;
+    }
+
+    /**
+     * Guarda todas las citas. Sin bitácora basta con copiar la lista y
+     * guardar la copia sin bloquear a quienes modifican.
+     *
+     * En modo bitácora, con el cerrojo de lectura tomado se copia la lista y
+     * se sella la bitácora: los cambios se anotan con el cerrojo de
+     * escritura, así que ninguno queda entre la copia y el sello. El archivo
+     * base se escribe después, sin el cerrojo, mientras los cambios nuevos
+     * van a una bitácora nueva. Si una cita de la copia cambia durante la
+     * escritura, su registro en la bitácora nueva prevalece al cargar.
+     *
+     * El orden de bloqueo es siempre primero el cerrojo del servicio y luego
+     * el del DAO.
+     */
+    private void guardarCopia() throws IOException {
+        if (!dao.usaBitacora()) {
+            dao.guardar(leer(() -> new ArrayList<>(citasConRegistroPropio())));
+            return;
+        }
+        List<Cita> copia;
+        long sello = cerrojo.readLock();
+        try {
+            copia = new ArrayList<>(citasConRegistroPropio());
+            dao.sellarBitacora();
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+        dao.compactar(copia);
+    }
+
+    /**
+     * Obtiene las citas que se guardan en el archivo de citas: todas menos
+     * las ocurrencias de series sin cambios, que se vuelven a generar desde
+     * la regla al cargar. Quien llama tiene el cerrojo.
+     */
+    private List<Cita> citasConRegistroPropio() {
+        if (series.isEmpty()) {
+            return citas;
+        }
+        return citas.stream().filter(c -> c.getSerie() == null).collect(Collectors.toList());
+    }
+
+    /**
+     * Persiste el cambio de una sola cita. En modo bitácora solo anexa un
+     * registro al archivo y compacta cuando la bitácora crece demasiado; en
+     * caso contrario reescribe el archivo completo.
+     *
+     * Si la cita es una ocurrencia de una serie, desde aquí pasa a tener su
+     * propio registro y deja de generarse desde la regla.
+     *
+     * @param cita Cita agregada o modificada
+     */
+    private void persistirCambio(Cita cita) {
+        cita.setSerie(null);
+        if (!dao.usaBitacora()) {
+            persistir();
+            return;
+        }
         try {
-            dao.guardar(citas);
+            dao.registrarCambio(cita);
+            if (dao.requiereCompactacion()) {
+                persistir();
+            }
         } catch (IOException e) {
-            System.err.println("Error guardando citas: " + e.getMessage());
+            System.err.println("Error registrando cambio de cita: " + e.getMessage());
+            persistir();
+        }
+    }
+
+    /**
+     * Persiste varias citas agregadas juntas. En modo bitácora las anexa con
+     * una sola escritura; en caso contrario solicita un único guardado del
+     * archivo completo.
+     *
+     * @param lote Citas agregadas
+     */
+    private void persistirCambios(List<Cita> lote) {
+        if (!dao.usaBitacora()) {
+            persistir();
+            return;
+        }
+        try {
+            dao.registrarCambios(lote);
+            if (dao.requiereCompactacion()) {
+                persistir();
+            }
+        } catch (IOException e) {
+            System.err.println("Error registrando lote de citas: " + e.getMessage());
+            persistir();
+        }
+    }
+
+    /**
+     * Persiste la eliminación de una cita, con la misma estrategia que
+     * {@link #persistirCambio(Cita)}.
+     *
+     * @param id ID de la cita eliminada
+     */
+    private void persistirEliminacion(String id) {
+        if (!dao.usaBitacora()) {
+            persistir();
+            return;
+        }
+        try {
+            dao.registrarEliminacion(id);
+            if (dao.requiereCompactacion()) {
+                persistir();
+            }
+        } catch (IOException e) {
+            System.err.println("Error registrando eliminación de cita: " + e.getMessage());
+            persistir();
         }
     }
 
@@ -64,62 +425,367 @@ public class CitaService {
      * @return true si se agendó exitosamente, false si hay errores
      */
     public boolean agendarCita(Cita cita) {
-        if (cita == null) {
-            System.err.println("Error: La cita es nula.");
+        EnumResultadoAgenda validacion = validarNueva(cita);
+        if (validacion != EnumResultadoAgenda.AGENDADA) {
+            System.err.println("Error: " + validacion.getDescripcion());
             return false;
         }
 
+        // Verificar el conflicto y agregar con el mismo cerrojo: dos reservas
+        // simultáneas no pueden quedarse con la misma franja del médico
+        return escribir(() -> {
+            if (existeConflictoHorario(cita.getMedico().getCedula(), cita.getFecha(), null)) {
+                System.err.println("Error: " + EnumResultadoAgenda.CONFLICTO_HORARIO.getDescripcion());
+                return false;
+            }
+
+            cita.setId(generarNuevoId());
+            citas.add(cita);
+            indexar(cita);
+            // Se registra dentro del cerrojo para que la bitácora quede en el mismo orden que los cambios
+            persistirCambio(cita);
+            return true;
+        });
+    }
+
+    /**
+     * Agenda varias citas a la vez, por ejemplo al importar la agenda de un
+     * call center. Cada cita se valida igual que en
+     * {@link #agendarCita(Cita)}, contra las citas ya agendadas y contra las
+     * anteriores del mismo lote. Las aceptadas reciben IDs consecutivos
+     * reservados de una sola vez y se guardan con una única escritura, en
+     * lugar de una por cita.
+     *
+     * Una cita rechazada no impide agendar las demás.
+     *
+     * @param lote Citas a agendar
+     * @return Resultado de cada cita, en el mismo orden del lote
+     */
+    public List<EnumResultadoAgenda> agendarCitas(List<Cita> lote) {
+        List<EnumResultadoAgenda> resultados = new ArrayList<>(lote.size());
+        // Lo que no depende de las demás citas se valida sin tomar el cerrojo
+        for (Cita cita : lote) {
+            resultados.add(validarNueva(cita));
+        }
+
+        escribir(() -> {
+            // Horarios aceptados en este lote, para detectar choques entre sus propias citas
+            IndiceHorarios horariosDelLote = new IndiceHorarios();
+            List<Cita> aceptadas = new ArrayList<>();
+            for (int i = 0; i < lote.size(); i++) {
+                if (resultados.get(i) != EnumResultadoAgenda.AGENDADA) {
+                    continue;
+                }
+                Cita cita = lote.get(i);
+                String cedulaMedico = cita.getMedico().getCedula();
+                if (existeConflictoHorario(cedulaMedico, cita.getFecha(), null)) {
+                    resultados.set(i, EnumResultadoAgenda.CONFLICTO_HORARIO);
+                } else if (horariosDelLote.hayConflicto(cedulaMedico, cita.getFecha(), null)) {
+                    resultados.set(i, EnumResultadoAgenda.CONFLICTO_EN_LOTE);
+                } else {
+                    horariosDelLote.agregar(cedulaMedico, cita.getFecha(), null);
+                    aceptadas.add(cita);
+                }
+            }
+            if (aceptadas.isEmpty()) {
+                return false;
+            }
+
+            int primero = generadorId.reservar(aceptadas.size());
+            guardarSecuencia(primero + aceptadas.size() - 1);
+            for (int k = 0; k < aceptadas.size(); k++) {
+                Cita cita = aceptadas.get(k);
+                cita.setId(GeneradorIdCitas.formatear(primero + k));
+                citas.add(cita);
+                indexar(cita);
+            }
+            persistirCambios(aceptadas);
+            return true;
+        });
+        return resultados;
+    }
+
+    /**
+     * Valida lo que no depende de las demás citas: que la cita tenga
+     * paciente y médico registrados y una fecha futura.
+     *
+     * @param cita Cita a validar
+     * @return AGENDADA si pasa las validaciones, o el motivo del rechazo
+     */
+    private EnumResultadoAgenda validarNueva(Cita cita) {
+        if (cita == null) {
+            return EnumResultadoAgenda.CITA_NULA;
+        }
         // Validar que el paciente exista
         if (cita.getPaciente() == null
                 || !pacienteService.existePaciente(cita.getPaciente().getCedula())) {
-            System.err.println("Error: El paciente no existe en el sistema.");
-            return false;
+            return EnumResultadoAgenda.PACIENTE_INEXISTENTE;
         }
-
         // Validar que el médico exista
         if (cita.getMedico() == null
                 || !medicoService.existeMedico(cita.getMedico().getCedula())) {
-            System.err.println("Error: El médico no existe en el sistema.");
-            return false;
+            return EnumResultadoAgenda.MEDICO_INEXISTENTE;
         }
-
         // Validar que la fecha sea futura
-        if (cita.getFecha().isBefore(LocalDateTime.now())) {
-            System.err.println("Error: La fecha de la cita debe ser futura.");
-            return false;
+        if (cita.getFecha() == null || cita.getFecha().isBefore(LocalDateTime.now())) {
+            return EnumResultadoAgenda.FECHA_INVALIDA;
         }
+        return EnumResultadoAgenda.AGENDADA;
+    }
 
-        // Validar que no haya conflicto de horario para el médico
-        if (existeConflictoHorario(cita.getMedico().getCedula(), cita.getFecha(), null)) {
-            System.err.println("Error: El médico ya tiene una cita agendada en ese horario.");
-            return false;
+    /**
+     * Busca, en una sola pasada por las fechas de la serie, las ocurrencias
+     * que chocan con citas ya agendadas del médico. Sirve para mostrar los
+     * choques y excluirlos antes de agendar la serie.
+     *
+     * @param serie Serie a revisar
+     * @return Fechas de las ocurrencias en conflicto, en orden; vacía si la
+     * serie no es válida
+     */
+    public List<LocalDateTime> buscarConflictosSerie(SerieCitas serie) {
+        if (validarSerie(serie) != EnumResultadoAgenda.AGENDADA) {
+            return new ArrayList<>();
         }
+        String cedulaMedico = serie.getMedico().getCedula();
+        return leer(() -> {
+            List<LocalDateTime> conflictos = new ArrayList<>();
+            for (LocalDateTime fecha : serie.fechas()) {
+                if (existeConflictoHorario(cedulaMedico, fecha, null)) {
+                    conflictos.add(fecha);
+                }
+            }
+            return conflictos;
+        });
+    }
 
-        cita.setId(generarNuevoId());
-        
-        boolean res = citas.add(cita);
-        if (res) {
-            persistir();
+    /**
+     * Agenda una serie de citas recurrentes, por ejemplo los controles
+     * semanales o mensuales de un paciente crónico. Todas las ocurrencias se
+     * validan en una sola pasada contra la agenda del médico y, si alguna
+     * choca, no se agenda ninguna: con
+     * {@link #buscarConflictosSerie(SerieCitas)} se pueden ver los choques y
+     * excluirlos. Los IDs de las ocurrencias se reservan de una sola vez y la
+     * serie se guarda como un único registro, no una línea por cita.
+     *
+     * @param serie Serie a agendar
+     * @return AGENDADA si se agendó, o el motivo del rechazo
+     */
+    public EnumResultadoAgenda agendarSerie(SerieCitas serie) {
+        EnumResultadoAgenda validacion = validarSerie(serie);
+        if (validacion != EnumResultadoAgenda.AGENDADA) {
+            System.err.println("Error: " + validacion.getDescripcion());
+            return validacion;
+        }
+
+        EnumResultadoAgenda resultado = escribir(() -> {
+            // Las ocurrencias están al menos a una semana entre sí, así que solo pueden chocar con otras citas
+            String cedulaMedico = serie.getMedico().getCedula();
+            for (LocalDateTime fecha : serie.fechas()) {
+                if (existeConflictoHorario(cedulaMedico, fecha, null)) {
+                    return EnumResultadoAgenda.CONFLICTO_HORARIO;
+                }
+            }
+
+            int primero = generadorId.reservar(serie.getCantidad());
+            guardarSecuencia(primero + serie.getCantidad() - 1);
+            serie.setNumero(primero);
+            series.put(primero, serie);
+            expandir(serie);
+            persistirSeries();
+            return EnumResultadoAgenda.AGENDADA;
+        });
+        if (resultado != EnumResultadoAgenda.AGENDADA) {
+            System.err.println("Error: " + resultado.getDescripcion());
         }
-        return res;
+        return resultado;
     }
 
-    private String generarNuevoId() {
-        int maxId = 0;
-        for (Cita c : citas) {
-            try {
-                String[] partes = c.getId().split("-");
-                int num = Integer.parseInt(partes[1]);
-                if (num > maxId) {
-                    maxId = num;
+    /**
+     * Cancela de una sola vez las citas de una serie desde un día en
+     * adelante, por ejemplo cuando el paciente termina su tratamiento. Las
+     * ocurrencias sin cambios se cancelan con solo actualizar el registro de
+     * la serie; las que ya tienen registro propio se cancelan una a una si
+     * siguen pendientes o confirmadas.
+     *
+     * @param idSerie ID de la serie (formato: "SERIE-XXXX")
+     * @param desde Primer día a cancelar
+     * @return true si se canceló, false si no se encontró la serie
+     */
+    public boolean cancelarSerieDesde(String idSerie, LocalDate desde) {
+        if (desde == null) {
+            System.err.println("Error: La fecha desde la que se cancela es nula.");
+            return false;
+        }
+
+        boolean cancelada = escribir(() -> {
+            SerieCitas serie = serieConId(idSerie);
+            if (serie == null) {
+                return false;
+            }
+            int corte = serie.ocurrenciaDesde(desde);
+            serie.cancelarDesde(corte);
+            for (int k = corte; k < serie.getCantidad(); k++) {
+                Cita cita = indiceIds.buscar(GeneradorIdCitas.formatear(serie.getNumero() + k));
+                if (cita == null || !IndiceParticipantes.esActiva(cita.getEstado())) {
+                    continue;
+                }
+                cita.cancelar();
+                if (cita.getSerie() != serie) {
+                    persistirCambio(cita);
                 }
-            } catch (Exception e) {
-                // ignorar errores de formato
             }
+            persistirSeries();
+            return true;
+        });
+
+        if (!cancelada) {
+            System.err.println("Error: No se encontró una serie con el ID " + idSerie);
+        }
+        return cancelada;
+    }
+
+    /**
+     * Busca una serie por su ID.
+     *
+     * @param idSerie ID de la serie (formato: "SERIE-XXXX")
+     * @return Optional con la serie si se encuentra, Optional.empty() si no
+     */
+    public Optional<SerieCitas> buscarSerie(String idSerie) {
+        return leer(() -> Optional.ofNullable(serieConId(idSerie)));
+    }
+
+    /**
+     * Busca una serie por su ID; quien llama tiene el cerrojo.
+     */
+    private SerieCitas serieConId(String idSerie) {
+        if (idSerie == null || !idSerie.startsWith(SerieCitas.PREFIJO)) {
+            return null;
+        }
+        try {
+            return series.get(Integer.parseInt(idSerie.substring(SerieCitas.PREFIJO.length())));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Valida lo que no depende de las demás citas: paciente y médico
+     * registrados, primera cita futura y una regla de repetición acotada.
+     *
+     * @param serie Serie a validar
+     * @return AGENDADA si pasa las validaciones, o el motivo del rechazo
+     */
+    private EnumResultadoAgenda validarSerie(SerieCitas serie) {
+        if (serie == null) {
+            return EnumResultadoAgenda.CITA_NULA;
+        }
+        if (serie.getPaciente() == null
+                || !pacienteService.existePaciente(serie.getPaciente().getCedula())) {
+            return EnumResultadoAgenda.PACIENTE_INEXISTENTE;
+        }
+        if (serie.getMedico() == null
+                || !medicoService.existeMedico(serie.getMedico().getCedula())) {
+            return EnumResultadoAgenda.MEDICO_INEXISTENTE;
+        }
+        if (serie.getInicio() == null || serie.getInicio().isBefore(LocalDateTime.now())) {
+            return EnumResultadoAgenda.FECHA_INVALIDA;
+        }
+        // Una serie ya agendada tiene número; no se puede agendar dos veces
+        if (serie.getNumero() != 0 || serie.getFrecuencia() == null || serie.getIntervalo() < 1
+                || serie.getCantidad() < 1 || serie.getCantidad() > SerieCitas.MAX_OCURRENCIAS
+                || serie.estaVacia()) {
+            return EnumResultadoAgenda.SERIE_INVALIDA;
+        }
+        return EnumResultadoAgenda.AGENDADA;
+    }
+
+    /**
+     * Crea en memoria las citas de una serie y las indexa, calculando cada
+     * fecha desde la regla. Se omiten las excepciones y las ocurrencias que
+     * ya tienen registro propio en el archivo de citas. Quien llama tiene el
+     * cerrojo de escritura.
+     *
+     * @param serie Serie a expandir
+     */
+    private void expandir(SerieCitas serie) {
+        for (int k = 0; k < serie.getCantidad(); k++) {
+            if (serie.esExcepcion(k)) {
+                continue;
+            }
+            String id = GeneradorIdCitas.formatear(serie.getNumero() + k);
+            if (indiceIds.buscar(id) != null) {
+                continue;
+            }
+            EnumEstadoCita estado = serie.estaCancelada(k) ? EnumEstadoCita.CANCELADA : EnumEstadoCita.PENDIENTE;
+            Cita cita = new Cita(id, serie.getPaciente(), serie.getMedico(), serie.getMotivo(), estado,
+                    serie.fechaOcurrencia(k));
+            cita.setSerie(serie);
+            // Este constructor no vincula la cita; se vincula igual que al leer el archivo
+            serie.getPaciente().agregarCita(cita);
+            serie.getMedico().agregarCita(cita);
+            citas.add(cita);
+            indexar(cita);
+        }
+    }
+
+    /**
+     * Solicita guardar las series en segundo plano. El archivo se reescribe
+     * fuera del cerrojo de escritura, así que eliminar ocurrencias seguidas
+     * no espera un fsync por cada una.
+     */
+    private void persistirSeries() {
+        persistenciaSeries.solicitar();
+    }
+
+    /**
+     * Guarda una copia de las series tomada con el cerrojo de lectura; la
+     * escritura ocurre sin el cerrojo.
+     */
+    private void guardarSeries() throws IOException {
+        seriesDao.guardar(leer(() -> {
+            List<SerieCitas> copia = new ArrayList<>(series.size());
+            for (SerieCitas s : series.values()) {
+                copia.add(new SerieCitas(s.getNumero(), s.getPaciente(), s.getMedico(), s.getMotivo(),
+                        s.getInicio(), s.getFrecuencia(), s.getIntervalo(), s.getCantidad(),
+                        s.getCanceladasDesde(), s.getExcepciones()));
+            }
+            return copia;
+        }));
+    }
+
+    /**
+     * Genera el siguiente ID de cita y, cuando se acaba el bloque reservado,
+     * guarda la secuencia para que los reinicios no reutilicen números.
+     *
+     * @return Nuevo ID con formato "CITA-XXXX"
+     */
+    private String generarNuevoId() {
+        int numero = generadorId.siguienteNumero();
+        guardarSecuencia(numero);
+        return GeneradorIdCitas.formatear(numero);
+    }
+
+    /**
+     * Asegura que la secuencia guardada cubra el último número entregado. Se
+     * guarda {@value #BLOQUE_SECUENCIA} números por delante, así que solo una
+     * de cada tantas reservas escribe el archivo; al reiniciar se sigue desde
+     * ese número y los que no se usaron del bloque quedan sin asignar. Quien
+     * llama tiene el cerrojo de escritura.
+     *
+     * @param ultimo Último número entregado
+     */
+    private void guardarSecuencia(int ultimo) {
+        if (ultimo <= secuenciaGuardada) {
+            return;
+        }
+        try {
+            dao.guardarSecuencia(ultimo + BLOQUE_SECUENCIA);
+            secuenciaGuardada = ultimo + BLOQUE_SECUENCIA;
+        } catch (IOException e) {
+            System.err.println("Error guardando secuencia de citas: " + e.getMessage());
         }
-        return String.format("CITA-%04d", maxId + 1);
     }
-    
+
     /**
      * Verifica si existe un conflicto de horario para un médico en una fecha
      * específica. Se considera conflicto si hay otra cita en la misma hora (con
@@ -132,41 +798,145 @@ public class CitaService {
      * @return true si hay conflicto, false si está disponible
      */
     private boolean existeConflictoHorario(String cedulaMedico, LocalDateTime fecha, String idCitaExcluir) {
-        // Verificar en citas válidas cargadas en memoria
-        boolean conflictoValido = citas.stream()
-            .filter(c -> !c.getId().equals(idCitaExcluir))
-            .filter(c -> c.getMedico().getCedula().equals(cedulaMedico))
-            .filter(c -> c.getEstado() != EnumEstadoCita.CANCELADA)
-            .anyMatch(c -> {
-                LocalDateTime inicioCita = c.getFecha();
-                LocalDateTime finCita = inicioCita.plusMinutes(30);
-                return !fecha.isBefore(inicioCita) && fecha.isBefore(finCita);
-            });
-
-        if (conflictoValido) return true;
-
-        // Verificar en las líneas inválidas cargadas del archivo
-        for (String linea : dao.lineasInvalidas) {
-            String[] partes = linea.split(",");
-            if (partes.length < 4) continue;
-            String cedMedicoInv = partes[2].trim();
-            String fechaTexto = partes[3].trim();
-
-            if (cedMedicoInv.equals(cedulaMedico)) {
-                try {
-                    LocalDateTime fechaInv = LocalDateTime.parse(fechaTexto);
-                    LocalDateTime finInv = fechaInv.plusMinutes(30);
-                    if (!fecha.isBefore(fechaInv) && fecha.isBefore(finInv)) {
-                        return true;
+        // El índice incluye tanto las citas válidas como las líneas inválidas del archivo
+        return indiceHorarios.hayConflicto(cedulaMedico, fecha, idCitaExcluir);
+    }
+
+    /**
+     * Busca los próximos horarios libres entre todos los médicos de una
+     * especialidad, para ofrecerlos al agendar en lugar de probar horas hasta
+     * que no haya conflicto. Solo se ofrecen franjas futuras dentro de la
+     * jornada de atención.
+     *
+     * @param especialidad Especialidad de los médicos
+     * @param desde Fecha y hora desde la que se busca
+     * @param hasta Límite de la búsqueda (las franjas empiezan antes)
+     * @param cantidad Cantidad máxima de horarios a devolver
+     * @return Horarios libres ordenados por fecha; en la misma hora, en el
+     * orden de los médicos
+     */
+    public List<HuecoLibre> buscarHuecosLibres(EnumEspecialidad especialidad, LocalDateTime desde,
+            LocalDateTime hasta, int cantidad) {
+        if (especialidad == null) {
+            return new ArrayList<>();
+        }
+        return buscarHuecos(medicoService.buscarPorEspecialidad(especialidad), desde, hasta, cantidad);
+    }
+
+    /**
+     * Busca los próximos horarios libres de un médico, con las mismas reglas
+     * que {@link #buscarHuecosLibres(EnumEspecialidad, LocalDateTime, LocalDateTime, int)}.
+     *
+     * @param medico Médico a consultar
+     * @param desde Fecha y hora desde la que se busca
+     * @param hasta Límite de la búsqueda (las franjas empiezan antes)
+     * @param cantidad Cantidad máxima de horarios a devolver
+     * @return Horarios libres del médico ordenados por fecha
+     */
+    public List<HuecoLibre> buscarHuecosLibres(Medico medico, LocalDateTime desde, LocalDateTime hasta, int cantidad) {
+        if (medico == null) {
+            return new ArrayList<>();
+        }
+        return buscarHuecos(List.of(medico), desde, hasta, cantidad);
+    }
+
+    /**
+     * Recomienda médicos de una especialidad ordenados por capacidad libre en
+     * un día: primero los que tienen menos minutos agendados ese día, y ante
+     * empate los que tienen menos en la semana. Así las citas nuevas no se
+     * acumulan en el primer médico de la lista. Solo cuentan las citas
+     * pendientes y confirmadas.
+     *
+     * Usa contadores que se actualizan con cada cambio, así que cuesta O(m)
+     * consultas para m médicos sin importar cuántas citas haya.
+     *
+     * @param especialidad Especialidad de los médicos
+     * @param dia Día para el que se quiere agendar
+     * @return Médicos de la especialidad, el más disponible primero; ante
+     * empate total se conserva el orden del archivo
+     */
+    public List<Medico> recomendarMedicos(EnumEspecialidad especialidad, LocalDate dia) {
+        if (especialidad == null || dia == null) {
+            return new ArrayList<>();
+        }
+        List<Medico> medicos = medicoService.buscarPorEspecialidad(especialidad);
+        // Minutos del día en los 32 bits altos y de la semana en los bajos: una sola clave ordena por ambos
+        long[] cargas = leer(() -> {
+            long[] claves = new long[medicos.size()];
+            for (int i = 0; i < medicos.size(); i++) {
+                String cedula = medicos.get(i).getCedula();
+                claves[i] = ((long) indiceCarga.minutosDelDia(cedula, dia) << 32)
+                        | indiceCarga.minutosDeLaSemana(cedula, dia);
+            }
+            return claves;
+        });
+        Integer[] orden = new Integer[medicos.size()];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = i;
+        }
+        // El ordenamiento de objetos es estable: los empates quedan en el orden original
+        Arrays.sort(orden, Comparator.comparingLong(i -> cargas[i]));
+        List<Medico> recomendados = new ArrayList<>(orden.length);
+        for (Integer i : orden) {
+            recomendados.add(medicos.get(i));
+        }
+        return recomendados;
+    }
+
+    /**
+     * Recorre los días del rango combinando, para cada médico, el mapa de
+     * bits de franjas ocupadas con el de la jornada, de modo que cada día
+     * cuesta unas pocas operaciones por médico.
+     */
+    private List<HuecoLibre> buscarHuecos(List<Medico> medicos, LocalDateTime desde, LocalDateTime hasta, int cantidad) {
+        List<HuecoLibre> huecos = new ArrayList<>();
+        if (medicos.isEmpty() || desde == null || hasta == null || cantidad <= 0) {
+            return huecos;
+        }
+        // Solo franjas futuras, igual que exige agendarCita
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime inicio = desde.isBefore(ahora) ? ahora : desde;
+        if (!inicio.isBefore(hasta)) {
+            return huecos;
+        }
+        long jornada = IndiceHorarios.franjasDeJornada();
+        long[] libres = new long[medicos.size()];
+
+        return leer(() -> {
+            for (LocalDate dia = inicio.toLocalDate(); !dia.isAfter(hasta.toLocalDate()); dia = dia.plusDays(1)) {
+                LocalDateTime medianoche = dia.atStartOfDay();
+                long permitidas = jornada & IndiceHorarios.franjasEntre(
+                        segundosDesde(medianoche, inicio), segundosDesde(medianoche, hasta));
+                long algunLibre = 0L;
+                for (int i = 0; i < medicos.size(); i++) {
+                    libres[i] = permitidas & ~indiceHorarios.ocupacionDelDia(medicos.get(i).getCedula(), dia);
+                    algunLibre |= libres[i];
+                }
+                // Franjas en orden: se toma el bit más bajo encendido y se apaga
+                while (algunLibre != 0L) {
+                    int franja = Long.numberOfTrailingZeros(algunLibre);
+                    algunLibre &= algunLibre - 1;
+                    LocalDateTime fecha = medianoche.plusMinutes((long) franja * IndiceHorarios.DURACION_CITA_MINUTOS);
+                    for (int i = 0; i < medicos.size(); i++) {
+                        if ((libres[i] & (1L << franja)) != 0L) {
+                            huecos.add(new HuecoLibre(medicos.get(i), fecha));
+                            if (huecos.size() == cantidad) {
+                                return huecos;
+                            }
+                        }
                     }
-                } catch (Exception e) {
-                    // Si la fecha no se puede analizar, es seguro asumir conflicto para evitar duplicados erróneos
-                    return true;
                 }
             }
-        }
+            return huecos;
+        });
+    }
 
-        return false;
+    /**
+     * Segundos entre la medianoche y una fecha, redondeados hacia arriba.
+     */
+    private static long segundosDesde(LocalDateTime medianoche, LocalDateTime fecha) {
+        Duration diferencia = Duration.between(medianoche, fecha);
+        return diferencia.getSeconds() + (diferencia.getNano() > 0 ? 1 : 0);
     }
 
     /**
@@ -180,9 +950,15 @@ public class CitaService {
             return Optional.empty();
         }
 
-        return citas.stream()
-                .filter(c -> c.getId().equals(id))
-                .findFirst();
+        return leer(() -> buscar(id));
+    }
+
+    /**
+     * Busca una cita por su ID en el índice, sin tomar el cerrojo; quien
+     * llama ya lo tiene.
+     */
+    private Optional<Cita> buscar(String id) {
+        return Optional.ofNullable(indiceIds.buscar(id));
     }
 
     /**
@@ -196,9 +972,7 @@ public class CitaService {
             return new ArrayList<>();
         }
 
-        return citas.stream()
-                .filter(c -> c.getPaciente().getCedula().equals(cedulaPaciente))
-                .collect(Collectors.toList());
+        return leer(() -> indiceParticipantes.porPaciente(cedulaPaciente));
     }
 
     /**
@@ -212,43 +986,75 @@ public class CitaService {
             return new ArrayList<>();
         }
 
-        return citas.stream()
-                .filter(c -> c.getMedico().getCedula().equals(cedulaMedico))
-                .collect(Collectors.toList());
+        return leer(() -> indiceParticipantes.porMedico(cedulaMedico));
     }
 
     /**
-     * Obtiene todas las citas en un rango de fechas.
+     * Obtiene las citas en las que una cédula participa, ya sea como paciente
+     * o como médico, sin repetir citas.
+     *
+     * @param cedula Cédula del paciente o del médico
+     * @return Citas como paciente seguidas de las citas como médico
+     */
+    public List<Cita> buscarPorParticipante(String cedula) {
+        if (cedula == null || cedula.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return leer(() -> indiceParticipantes.porParticipante(cedula));
+    }
+
+    /**
+     * Obtiene todas las citas en un rango de fechas. Usa el índice por fecha,
+     * así que solo recorre las citas del rango.
      *
      * @param fechaInicio Fecha de inicio del rango
      * @param fechaFin Fecha de fin del rango
-     * @return Lista de citas en ese rango
+     * @return Lista de citas en ese rango, ordenadas por fecha
      */
     public List<Cita> buscarPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
         if (fechaInicio == null || fechaFin == null) {
             return new ArrayList<>();
         }
 
-        return citas.stream()
-                .filter(c -> !c.getFecha().isBefore(fechaInicio)
-                && !c.getFecha().isAfter(fechaFin))
-                .collect(Collectors.toList());
+        return leer(() -> indiceFechas.buscar(fechaInicio, fechaFin));
     }
 
     /**
      * Obtiene todas las citas con un estado específico.
      *
      * @param estado Estado de la cita
-     * @return Lista de citas con ese estado
+     * @return Lista de citas con ese estado, sin un orden particular
      */
     public List<Cita> buscarPorEstado(EnumEstadoCita estado) {
         if (estado == null) {
             return new ArrayList<>();
         }
 
-        return citas.stream()
-                .filter(c -> c.getEstado() == estado)
-                .collect(Collectors.toList());
+        return leer(() -> indiceEstados.listar(estado));
+    }
+
+    /**
+     * Obtiene la cantidad de citas con un estado específico.
+     *
+     * @param estado Estado de la cita
+     * @return Número de citas con ese estado
+     */
+    public int contarPorEstado(EnumEstadoCita estado) {
+        if (estado == null) {
+            return 0;
+        }
+
+        return leer(() -> indiceEstados.contar(estado));
+    }
+
+    /**
+     * Obtiene la cantidad de citas de cada estado.
+     *
+     * @return Mapa de estado a número de citas, con todos los estados
+     */
+    public Map<EnumEstadoCita, Integer> contarPorEstado() {
+        return leer(indiceEstados::contarTodos);
     }
 
     /**
@@ -257,7 +1063,7 @@ public class CitaService {
      * @return Lista con todas las citas (copia defensiva)
      */
     public List<Cita> listarTodas() {
-        return new ArrayList<>(citas);
+        return leer(() -> new ArrayList<>(citas));
     }
 
     /**
@@ -267,13 +1073,19 @@ public class CitaService {
      * @return true si se confirmó exitosamente, false si no se pudo
      */
     public boolean confirmarCita(String id) {
-        Optional<Cita> citaOpt = buscarPorId(id);
-        if (citaOpt.isPresent()) {
-            return citaOpt.get().confirmar();
-        }
+        return escribir(() -> {
+            Optional<Cita> citaOpt = buscar(id);
+            if (citaOpt.isPresent()) {
+                boolean ok = citaOpt.get().confirmar();
+                if (ok) {
+                    persistirCambio(citaOpt.get());
+                }
+                return ok;
+            }
 
-        System.err.println("Error: No se encontró una cita con el ID " + id);
-        return false;
+            System.err.println("Error: No se encontró una cita con el ID " + id);
+            return false;
+        });
     }
 
     /**
@@ -283,16 +1095,19 @@ public class CitaService {
      * @return true si se canceló exitosamente, false si no se pudo
      */
     public boolean cancelarCita(String id) {
-        Optional<Cita> citaOpt = buscarPorId(id);
-        if (citaOpt.isPresent()) {
-            boolean ok = citaOpt.get().cancelar();
-            if (ok) {
-                persistir();
+        return escribir(() -> {
+            Optional<Cita> citaOpt = buscar(id);
+            if (citaOpt.isPresent()) {
+                Cita cita = citaOpt.get();
+                boolean ok = cita.cancelar();
+                if (ok) {
+                    persistirCambio(cita);
+                }
+                return ok;
             }
-            return ok;
-        }
-        System.err.println("Error: No se encontró una cita con el ID " + id);
-        return false;
+            System.err.println("Error: No se encontró una cita con el ID " + id);
+            return false;
+        });
     }
 
     /**
@@ -302,16 +1117,18 @@ public class CitaService {
      * @return true si se completó exitosamente, false si no se pudo
      */
     public boolean completarCita(String id) {
-        Optional<Cita> citaOpt = buscarPorId(id);
-        if (citaOpt.isPresent()) {
-            boolean ok = citaOpt.get().completar();
-            if (ok) {
-                persistir();
+        return escribir(() -> {
+            Optional<Cita> citaOpt = buscar(id);
+            if (citaOpt.isPresent()) {
+                boolean ok = citaOpt.get().completar();
+                if (ok) {
+                    persistirCambio(citaOpt.get());
+                }
+                return ok;
             }
-            return ok;
-        }
-        System.err.println("Error: No se encontró una cita con el ID " + id);
-        return false;
+            System.err.println("Error: No se encontró una cita con el ID " + id);
+            return false;
+        });
     }
 
     /**
@@ -321,15 +1138,17 @@ public class CitaService {
      * @return true si se marcó exitosamente, false si no se encontró
      */
     public boolean marcarNoAsistio(String id) {
-        Optional<Cita> citaOpt = buscarPorId(id);
-        if (citaOpt.isPresent()) {
-            citaOpt.get().marcarNoAsistio();
-            persistir();
-            return true;
-        }
+        return escribir(() -> {
+            Optional<Cita> citaOpt = buscar(id);
+            if (citaOpt.isPresent()) {
+                citaOpt.get().marcarNoAsistio();
+                persistirCambio(citaOpt.get());
+                return true;
+            }
 
-        System.err.println("Error: No se encontró una cita con el ID " + id);
-        return false;
+            System.err.println("Error: No se encontró una cita con el ID " + id);
+            return false;
+        });
     }
 
     /**
@@ -345,24 +1164,74 @@ public class CitaService {
             return false;
         }
 
-        Optional<Cita> citaOpt = buscarPorId(id);
+        return escribir(() -> actualizar(id, citaActualizada));
+    }
+
+    /**
+     * Aplica la actualización de una cita; quien llama tiene el cerrojo de
+     * escritura.
+     */
+    private boolean actualizar(String id, Cita citaActualizada) {
+        Optional<Cita> citaOpt = buscar(id);
         if (citaOpt.isPresent()) {
             Cita cita = citaOpt.get();
+            LocalDateTime fechaAnterior = cita.getFecha();
 
-            // Validar cambio de fecha si hay conflicto
-            if (!cita.getFecha().equals(citaActualizada.getFecha())) {
-                if (existeConflictoHorario(cita.getMedico().getCedula(),
+            Medico medicoNuevo = citaActualizada.getMedico() != null ? citaActualizada.getMedico() : cita.getMedico();
+            boolean cambiaMedico = !medicoNuevo.equals(cita.getMedico());
+
+            // Validar cambio de fecha o de médico si hay conflicto
+            if (cambiaMedico || !cita.getFecha().equals(citaActualizada.getFecha())) {
+                if (existeConflictoHorario(medicoNuevo.getCedula(),
                         citaActualizada.getFecha(),
                         id)) { // Excluir la cita actual de la validación
                     System.err.println("Error: Conflicto de horario al actualizar la cita.");
                     return false;
                 }
-                cita.setFecha(citaActualizada.getFecha());
             }
 
+            Paciente pacienteNuevo = citaActualizada.getPaciente();
+            boolean cambiaPaciente = pacienteNuevo != null && !pacienteNuevo.equals(cita.getPaciente());
+
+            // El estado se cambia primero: el observador actualiza los índices con
+            // el médico, el paciente y la fecha con que la cita está registrada
+            if (citaActualizada.getEstado() != null) {
+                cita.setEstado(citaActualizada.getEstado());
+            }
+
+            // Liberar el horario y la carga anteriores antes de aplicar los cambios
+            desindexarHorario(cita, fechaAnterior, cita.getEstado());
+            boolean activa = IndiceParticipantes.esActiva(cita.getEstado());
+            if (activa) {
+                indiceCarga.quitar(cita.getMedico().getCedula(), fechaAnterior);
+            }
+            if (cambiaMedico || cambiaPaciente) {
+                indiceParticipantes.quitar(cita);
+            }
+            cita.setFecha(citaActualizada.getFecha());
+            if (!fechaAnterior.equals(cita.getFecha())) {
+                indiceFechas.quitar(fechaAnterior, cita);
+                indiceFechas.agregar(cita.getFecha(), cita);
+            }
+            if (cambiaMedico) {
+                cita.getMedico().eliminarCita(cita);
+                cita.setMedico(medicoNuevo);
+                medicoNuevo.agregarCita(cita);
+            }
+            if (cambiaPaciente) {
+                cita.getPaciente().eliminarCita(cita);
+                cita.setPaciente(pacienteNuevo);
+                pacienteNuevo.agregarCita(cita);
+            }
             cita.setMotivo(citaActualizada.getMotivo());
-            cita.setEstado(citaActualizada.getEstado());
-            persistir();
+            indexarHorario(cita);
+            if (activa) {
+                indiceCarga.agregar(cita.getMedico().getCedula(), cita.getFecha());
+            }
+            if (cambiaMedico || cambiaPaciente) {
+                indiceParticipantes.agregar(cita);
+            }
+            persistirCambio(cita);
             return true;
         }
 
@@ -377,47 +1246,104 @@ public class CitaService {
      * @return true si se eliminó exitosamente, false si no se encontró
      */
     public boolean eliminarCita(String id) {
-        boolean eliminado = citas.removeIf(c -> c.getId().equals(id));
+        boolean eliminado = escribir(() -> {
+            // Se quitan todas las citas con ese ID, por si el archivo se editó a mano y lo repite
+            boolean encontrado = false;
+            Cita c;
+            while ((c = indiceIds.buscar(id)) != null) {
+                desindexar(c);
+                quitarDeLista(c);
+                encontrado = true;
+            }
+            if (encontrado) {
+                persistirEliminacion(id);
+                excluirDeSerie(id);
+            }
+            return encontrado;
+        });
 
-        if (eliminado) {
-            persistir();
-        } else {
+        if (!eliminado) {
             System.err.println("Error: No se encontró una cita con el ID " + id);
         }
 
         return eliminado;
     }
 
+    /**
+     * Quita una cita de la lista comparando por identidad; quien llama tiene
+     * el cerrojo de escritura. Las citas recientes, que son las que más se
+     * eliminan, están al final, así que se busca desde ahí.
+     */
+    private void quitarDeLista(Cita cita) {
+        for (int i = citas.size() - 1; i >= 0; i--) {
+            if (citas.get(i) == cita) {
+                citas.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Si la cita eliminada es una ocurrencia de una serie, la marca como
+     * excepción para que no se vuelva a generar al cargar. Solo cuentan los
+     * IDs con la forma exacta que les da expandir: "CITA-01", escrito a mano
+     * en el archivo, no es la ocurrencia de "CITA-0001". Quien llama tiene el
+     * cerrojo de escritura.
+     *
+     * @param id ID de la cita eliminada
+     */
+    private void excluirDeSerie(String id) {
+        int numero = GeneradorIdCitas.numeroCanonico(id);
+        Map.Entry<Integer, SerieCitas> entrada = numero < 0 ? null : series.floorEntry(numero);
+        if (entrada == null) {
+            return;
+        }
+        SerieCitas serie = entrada.getValue();
+        int k = numero - serie.getNumero();
+        // Una ocurrencia ya excluida no la generó expandir, así que no hay nada que cambiar
+        if (k >= serie.getCantidad() || serie.esExcepcion(k)) {
+            return;
+        }
+        serie.agregarExcepcion(k);
+        if (serie.estaVacia()) {
+            series.remove(serie.getNumero());
+        }
+        persistirSeries();
+    }
+
     /**
      * Obtiene la cantidad total de citas registradas.
      *
      * @return Número de citas
      */
     public int contarCitas() {
-        return citas.size();
+        long sello = cerrojo.tryOptimisticRead();
+        int cantidad = citas.size();
+        if (!cerrojo.validate(sello)) {
+            cantidad = leer(citas::size);
+        }
+        return cantidad;
     }
 
     /**
      * Obtiene las citas próximas (dentro de las próximas 24 horas).
      *
-     * @return Lista de citas próximas
+     * @return Lista de citas próximas, ordenadas por fecha
      */
     public List<Cita> obtenerCitasProximas() {
         LocalDateTime ahora = LocalDateTime.now();
         LocalDateTime limite = ahora.plusHours(24);
 
-        return citas.stream()
+        return leer(() -> indiceFechas.buscar(ahora, limite).stream()
                 .filter(c -> c.getEstado() == EnumEstadoCita.CONFIRMADA
                 || c.getEstado() == EnumEstadoCita.PENDIENTE)
-                .filter(c -> !c.getFecha().isBefore(ahora)
-                && !c.getFecha().isAfter(limite))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     /**
      * Obtiene las citas del día actual.
      *
-     * @return Lista de citas de hoy
+     * @return Lista de citas de hoy, ordenadas por fecha
      */
     public List<Cita> obtenerCitasDelDia() {
         LocalDateTime inicioDia = LocalDateTime.now().toLocalDate().atStartOfDay();
@@ -433,10 +1359,7 @@ public class CitaService {
      * @return true si tiene citas activas, false si no
      */
     public boolean pacienteTieneCitasActivas(String cedulaPaciente) {
-        return citas.stream()
-                .filter(c -> c.getPaciente().getCedula().equals(cedulaPaciente))
-                .anyMatch(c -> c.getEstado() == EnumEstadoCita.PENDIENTE
-                || c.getEstado() == EnumEstadoCita.CONFIRMADA);
+        return leer(() -> indiceParticipantes.pacienteTieneActivas(cedulaPaciente));
     }
 
     /**
@@ -446,9 +1369,6 @@ public class CitaService {
      * @return true si tiene citas activas, false si no
      */
     public boolean medicoTieneCitasActivas(String cedulaMedico) {
-        return citas.stream()
-                .filter(c -> c.getMedico().getCedula().equals(cedulaMedico))
-                .anyMatch(c -> c.getEstado() == EnumEstadoCita.PENDIENTE
-                || c.getEstado() == EnumEstadoCita.CONFIRMADA);
+        return leer(() -> indiceParticipantes.medicoTieneActivas(cedulaMedico));
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generador de IDs de citas con formato "CITA-XXXX". Se inicializa una sola
+ * vez con el mayor número conocido y entrega números consecutivos de forma
+ * atómica, por lo que es seguro usarlo desde varios hilos. A partir de 9999
+ * el número simplemente crece en dígitos (CITA-10000, CITA-10001, ...).
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class GeneradorIdCitas {
+
+    public static final String PREFIJO = "CITA-";
+
+    private final AtomicInteger ultimo;
+
+    /**
+     * Crea el generador a partir del último número ya utilizado.
+     *
+     * @param ultimoUsado Mayor número de cita existente (0 si no hay)
+     */
+    public GeneradorIdCitas(int ultimoUsado) {
+        this.ultimo = new AtomicInteger(Math.max(ultimoUsado, 0));
+    }
+
+    /**
+     * Reserva el siguiente número de cita.
+     *
+     * @return Número reservado
+     */
+    public int siguienteNumero() {
+        return ultimo.incrementAndGet();
+    }
+
+    /**
+     * Reserva de una sola vez varios números consecutivos, por ejemplo para
+     * un lote de citas.
+     *
+     * @param cantidad Cantidad de números a reservar
+     * @return Primer número reservado; los demás le siguen en orden
+     */
+    public int reservar(int cantidad) {
+        return ultimo.getAndAdd(cantidad) + 1;
+    }
+
+    /**
+     * Obtiene el último número entregado.
+     *
+     * @return Último número reservado
+     */
+    public int getUltimo() {
+        return ultimo.get();
+    }
+
+    /**
+     * Da formato de ID a un número de cita.
+     *
+     * @param numero Número de cita
+     * @return ID con formato "CITA-XXXX"
+     */
+    public static String formatear(int numero) {
+        if (numero < 0) {
+            return String.format(PREFIJO + "%04d", numero);
+        }
+        // Equivalente a "%04d" sin el costo de String.format (se usa al cargar miles de citas)
+        String digitos = Integer.toString(numero);
+        StringBuilder id = new StringBuilder(PREFIJO.length() + Math.max(4, digitos.length())).append(PREFIJO);
+        for (int i = digitos.length(); i < 4; i++) {
+            id.append('0');
+        }
+        return id.append(digitos).toString();
+    }
+
+    /**
+     * Extrae la parte numérica de un ID con formato "CITA-XXXX".
+     *
+     * @param id ID de la cita
+     * @return Número de la cita, o -1 si el ID no tiene el formato esperado
+     */
+    public static int extraerNumero(String id) {
+        if (id == null || !id.startsWith(PREFIJO)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(id.substring(PREFIJO.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Obtiene el número de un ID solo si al volver a darle formato resulta el
+     * mismo texto; así "CITA-01" y "CITA-0001" no se confunden.
+     *
+     * @param id ID de la cita (no nulo)
+     * @return Número de la cita, o -1 si el ID no tiene la forma que entrega
+     * {@link #formatear(int)}
+     */
+    static int numeroCanonico(String id) {
+        int inicio = PREFIJO.length();
+        int digitos = id.length() - inicio;
+        if (digitos < 4 || digitos > 9 || !id.startsWith(PREFIJO)
+                || (digitos > 4 && id.charAt(inicio) == '0')) {
+            return -1;
+        }
+        // Se analiza a mano para no crear una subcadena en cada búsqueda
+        int numero = 0;
+        for (int i = inicio; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        return numero;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import com.mycompany.appclinica.Models.Medico;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Horario libre de un médico: una franja de
+ * {@value IndiceHorarios#DURACION_CITA_MINUTOS} minutos en la que se puede
+ * agendar una cita sin conflicto.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class HuecoLibre {
+
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final Medico medico;
+    private final LocalDateTime fecha;
+
+    /**
+     * Crea un horario libre.
+     *
+     * @param medico Médico que tiene libre la franja
+     * @param fecha Fecha y hora de inicio de la franja
+     */
+    public HuecoLibre(Medico medico, LocalDateTime fecha) {
+        this.medico = medico;
+        this.fecha = fecha;
+    }
+
+    /**
+     * @return Médico que tiene libre la franja
+     */
+    public Medico getMedico() {
+        return medico;
+    }
+
+    /**
+     * @return Fecha y hora de inicio de la franja
+     */
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    /**
+     * Representación legible para mostrar en listas.
+     *
+     * @return Fecha, hora y nombre del médico
+     */
+    @Override
+    public String toString() {
+        return fecha.format(FORMATO) + " - " + medico.getNombreCompleto();
+    }
+}
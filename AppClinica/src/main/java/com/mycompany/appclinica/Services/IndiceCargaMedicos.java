@@ -0,0 +1,97 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice de carga por médico: minutos agendados por día y por semana (de
+ * lunes a domingo). Se actualiza cita por cita, así que consultar la carga de
+ * un médico cuesta O(1) sin importar cuántas citas haya en el historial.
+ *
+ * Qué citas cuentan lo decide quien lo usa; este índice solo suma y resta
+ * {@value IndiceHorarios#DURACION_CITA_MINUTOS} minutos por cita.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class IndiceCargaMedicos {
+
+    // cédula médico -> (día -> minutos agendados)
+    private final Map<String, Map<LocalDate, Integer>> minutosPorDia = new HashMap<>();
+    // cédula médico -> (lunes de la semana -> minutos agendados)
+    private final Map<String, Map<LocalDate, Integer>> minutosPorSemana = new HashMap<>();
+
+    /**
+     * Suma a la carga del médico una cita que empieza en la fecha indicada.
+     *
+     * @param cedulaMedico Cédula del médico
+     * @param fecha Fecha y hora de inicio de la cita
+     */
+    public synchronized void agregar(String cedulaMedico, LocalDateTime fecha) {
+        sumar(cedulaMedico, fecha.toLocalDate(), IndiceHorarios.DURACION_CITA_MINUTOS);
+    }
+
+    /**
+     * Resta de la carga del médico una cita que empieza en la fecha indicada.
+     *
+     * @param cedulaMedico Cédula del médico
+     * @param fecha Fecha y hora de inicio con la que se sumó la cita
+     */
+    public synchronized void quitar(String cedulaMedico, LocalDateTime fecha) {
+        sumar(cedulaMedico, fecha.toLocalDate(), -IndiceHorarios.DURACION_CITA_MINUTOS);
+    }
+
+    /**
+     * @param cedulaMedico Cédula del médico
+     * @param dia Día a consultar
+     * @return Minutos agendados del médico ese día
+     */
+    public synchronized int minutosDelDia(String cedulaMedico, LocalDate dia) {
+        return consultar(minutosPorDia, cedulaMedico, dia);
+    }
+
+    /**
+     * @param cedulaMedico Cédula del médico
+     * @param dia Cualquier día de la semana a consultar
+     * @return Minutos agendados del médico en la semana (de lunes a domingo)
+     * que contiene ese día
+     */
+    public synchronized int minutosDeLaSemana(String cedulaMedico, LocalDate dia) {
+        return consultar(minutosPorSemana, cedulaMedico, inicioSemana(dia));
+    }
+
+    private void sumar(String cedulaMedico, LocalDate dia, int minutos) {
+        acumular(minutosPorDia, cedulaMedico, dia, minutos);
+        acumular(minutosPorSemana, cedulaMedico, inicioSemana(dia), minutos);
+    }
+
+    private static void acumular(Map<String, Map<LocalDate, Integer>> indice, String cedulaMedico,
+            LocalDate clave, int minutos) {
+        Map<LocalDate, Integer> porFecha = indice.computeIfAbsent(cedulaMedico, k -> new HashMap<>());
+        // merge quita la entrada cuando la suma llega a cero, para no acumular días vacíos
+        porFecha.merge(clave, minutos, (a, b) -> a + b == 0 ? null : a + b);
+        if (porFecha.isEmpty()) {
+            indice.remove(cedulaMedico);
+        }
+    }
+
+    private static int consultar(Map<String, Map<LocalDate, Integer>> indice, String cedulaMedico, LocalDate clave) {
+        Map<LocalDate, Integer> porFecha = indice.get(cedulaMedico);
+        if (porFecha == null) {
+            return 0;
+        }
+        Integer minutos = porFecha.get(clave);
+        return minutos == null ? 0 : minutos;
+    }
+
+    private static LocalDate inicioSemana(LocalDate dia) {
+        return dia.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.EnumEstadoCita;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Índice de citas por estado. Cada estado tiene sus citas ordenadas por
+ * número de cita, así que contar las citas de un estado cuesta O(1) y
+ * listarlas O(k), sin ordenar en cada consulta.
+ *
+ * Las citas se agrupan por número y se comparan por identidad y no por ID,
+ * porque un archivo editado a mano puede tener dos citas con el mismo ID;
+ * esas quedan en el orden en que se registraron.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class IndiceEstados {
+
+    // Estado -> número de cita -> citas con ese número, en orden de registro
+    private final Map<EnumEstadoCita, TreeMap<Integer, Cita[]>> citasPorEstado = new EnumMap<>(EnumEstadoCita.class);
+    private final int[] cantidades = new int[EnumEstadoCita.values().length];
+
+    /**
+     * Crea el índice con un grupo vacío por cada estado.
+     */
+    public IndiceEstados() {
+        for (EnumEstadoCita estado : EnumEstadoCita.values()) {
+            citasPorEstado.put(estado, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Registra una cita en el grupo de su estado actual.
+     *
+     * @param cita Cita a registrar
+     */
+    public synchronized void agregar(Cita cita) {
+        EnumEstadoCita estado = cita.getEstado();
+        if (estado == null || contiene(cita, estado)) {
+            return;
+        }
+        citasPorEstado.get(estado).merge(numero(cita), new Cita[]{cita}, (grupo, nueva) -> {
+            Cita[] ampliado = Arrays.copyOf(grupo, grupo.length + 1);
+            ampliado[grupo.length] = nueva[0];
+            return ampliado;
+        });
+        cantidades[estado.ordinal()]++;
+    }
+
+    /**
+     * Quita una cita del grupo de su estado actual.
+     *
+     * @param cita Cita a quitar
+     */
+    public synchronized void quitar(Cita cita) {
+        if (cita.getEstado() != null) {
+            quitar(cita, cita.getEstado());
+        }
+    }
+
+    /**
+     * Mueve una cita que cambió de estado al grupo de su nuevo estado.
+     *
+     * @param cita Cita que cambió de estado
+     * @param estadoAnterior Estado que tenía antes del cambio
+     */
+    public synchronized void mover(Cita cita, EnumEstadoCita estadoAnterior) {
+        if (estadoAnterior != null) {
+            quitar(cita, estadoAnterior);
+        }
+        agregar(cita);
+    }
+
+    /**
+     * Indica si una cita está registrada en el grupo de un estado.
+     *
+     * @param cita Cita a buscar
+     * @param estado Estado a consultar
+     * @return true si la cita está en el grupo de ese estado
+     */
+    public synchronized boolean contiene(Cita cita, EnumEstadoCita estado) {
+        if (estado == null) {
+            return false;
+        }
+        Cita[] grupo = citasPorEstado.get(estado).get(numero(cita));
+        return grupo != null && posicion(grupo, cita) >= 0;
+    }
+
+    /**
+     * @param estado Estado a consultar
+     * @return Citas en ese estado, ordenadas por número de cita
+     */
+    public synchronized List<Cita> listar(EnumEstadoCita estado) {
+        List<Cita> lista = new ArrayList<>(cantidades[estado.ordinal()]);
+        for (Cita[] grupo : citasPorEstado.get(estado).values()) {
+            lista.addAll(Arrays.asList(grupo));
+        }
+        return lista;
+    }
+
+    /**
+     * @param estado Estado a consultar
+     * @return Cantidad de citas en ese estado
+     */
+    public synchronized int contar(EnumEstadoCita estado) {
+        return cantidades[estado.ordinal()];
+    }
+
+    /**
+     * @return Cantidad de citas de cada estado, incluidos los que no tienen
+     * ninguna
+     */
+    public synchronized Map<EnumEstadoCita, Integer> contarTodos() {
+        Map<EnumEstadoCita, Integer> cuentas = new EnumMap<>(EnumEstadoCita.class);
+        for (EnumEstadoCita estado : EnumEstadoCita.values()) {
+            cuentas.put(estado, cantidades[estado.ordinal()]);
+        }
+        return cuentas;
+    }
+
+    private void quitar(Cita cita, EnumEstadoCita estado) {
+        TreeMap<Integer, Cita[]> grupos = citasPorEstado.get(estado);
+        Integer numero = numero(cita);
+        Cita[] grupo = grupos.get(numero);
+        int i = grupo == null ? -1 : posicion(grupo, cita);
+        if (i < 0) {
+            return;
+        }
+        if (grupo.length == 1) {
+            grupos.remove(numero);
+        } else {
+            Cita[] reducido = new Cita[grupo.length - 1];
+            System.arraycopy(grupo, 0, reducido, 0, i);
+            System.arraycopy(grupo, i + 1, reducido, i, grupo.length - i - 1);
+            grupos.put(numero, reducido);
+        }
+        cantidades[estado.ordinal()]--;
+    }
+
+    /**
+     * Número con el que se ordena la cita; el ID no cambia mientras está
+     * registrada.
+     */
+    private static int numero(Cita cita) {
+        return GeneradorIdCitas.extraerNumero(cita.getId());
+    }
+
+    private static int posicion(Cita[] grupo, Cita cita) {
+        for (int i = 0; i < grupo.length; i++) {
+            if (grupo[i] == cita) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import com.mycompany.appclinica.Models.Cita;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índice de citas ordenado por fecha y hora. Las citas se guardan en una skip
+ * list agrupadas por fecha de inicio, así que obtener las de un rango cuesta
+ * O(log n + k) en lugar de recorrer todas las citas cargadas.
+ *
+ * Cada grupo es un arreglo que se reemplaza completo al cambiar, de modo que
+ * las consultas pueden leer el índice mientras otro hilo lo modifica.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class IndiceFechas {
+
+    // fecha de inicio -> citas que empiezan a esa hora, en orden de inserción
+    private final ConcurrentSkipListMap<LocalDateTime, Cita[]> citasPorFecha = new ConcurrentSkipListMap<>();
+
+    /**
+     * Registra una cita en la fecha indicada.
+     *
+     * @param fecha Fecha y hora de inicio de la cita
+     * @param cita Cita a registrar
+     */
+    public void agregar(LocalDateTime fecha, Cita cita) {
+        citasPorFecha.compute(fecha, (k, grupo) -> {
+            if (grupo == null) {
+                return new Cita[]{cita};
+            }
+            Cita[] nuevo = Arrays.copyOf(grupo, grupo.length + 1);
+            nuevo[grupo.length] = cita;
+            return nuevo;
+        });
+    }
+
+    /**
+     * Quita una cita registrada en la fecha indicada.
+     *
+     * @param fecha Fecha con la que se registró la cita
+     * @param cita Cita a quitar
+     */
+    public void quitar(LocalDateTime fecha, Cita cita) {
+        citasPorFecha.computeIfPresent(fecha, (k, grupo) -> {
+            for (int i = 0; i < grupo.length; i++) {
+                if (grupo[i] == cita) {
+                    if (grupo.length == 1) {
+                        return null;
+                    }
+                    Cita[] nuevo = new Cita[grupo.length - 1];
+                    System.arraycopy(grupo, 0, nuevo, 0, i);
+                    System.arraycopy(grupo, i + 1, nuevo, i, grupo.length - i - 1);
+                    return nuevo;
+                }
+            }
+            return grupo;
+        });
+    }
+
+    /**
+     * Obtiene las citas que empiezan entre dos fechas, ambas incluidas,
+     * ordenadas por fecha.
+     *
+     * @param desde Fecha inicial
+     * @param hasta Fecha final
+     * @return Citas del rango
+     */
+    public List<Cita> buscar(LocalDateTime desde, LocalDateTime hasta) {
+        List<Cita> resultado = new ArrayList<>();
+        if (desde.isAfter(hasta)) {
+            return resultado;
+        }
+        ConcurrentNavigableMap<LocalDateTime, Cita[]> rango = citasPorFecha.subMap(desde, true, hasta, true);
+        for (Cita[] grupo : rango.values()) {
+            resultado.addAll(Arrays.asList(grupo));
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice de horarios ocupados por médico. Para cada cédula de médico guarda
+ * las horas de inicio de sus citas no canceladas ordenadas en un árbol, de
+ * modo que saber si un bloque de 30 minutos se solapa cuesta O(log n). Es
+ * seguro usarlo desde varios hilos.
+ *
+ * Además mantiene, por médico y por día, un mapa de bits de las 48 franjas de
+ * 30 minutos del día (un long por día): el bit i está encendido si una cita
+ * del médico choca con una cita nueva que empiece en la franja i. Con eso,
+ * buscar horarios libres no necesita recorrer el árbol.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class IndiceHorarios {
+
+    /**
+     * Duración de cada cita en minutos.
+     */
+    public static final int DURACION_CITA_MINUTOS = 30;
+
+    /**
+     * Cantidad de franjas de {@value #DURACION_CITA_MINUTOS} minutos en un día.
+     */
+    public static final int FRANJAS_POR_DIA = 24 * 60 / DURACION_CITA_MINUTOS;
+
+    /**
+     * Hora en que empieza la jornada de atención; los horarios libres se
+     * buscan desde esta hora. Se puede cambiar con
+     * {@code -Dappclinica.jornada.inicio=HH:mm}.
+     */
+    public static final LocalTime INICIO_JORNADA = leerHora("appclinica.jornada.inicio", "07:00");
+
+    /**
+     * Hora en que termina la jornada de atención; la última franja libre
+     * termina a esta hora. Se puede cambiar con
+     * {@code -Dappclinica.jornada.fin=HH:mm}.
+     */
+    public static final LocalTime FIN_JORNADA = leerHora("appclinica.jornada.fin", "19:00");
+
+    private static final long SEGUNDOS_FRANJA = DURACION_CITA_MINUTOS * 60L;
+
+    // cédula médico -> (hora de inicio -> IDs de citas que empiezan a esa hora)
+    private final Map<String, NavigableMap<LocalDateTime, List<String>>> horariosPorMedico = new HashMap<>();
+    // Médicos con líneas inválidas cuya fecha no se pudo interpretar
+    private final Set<String> medicosConFechaIlegible = new HashSet<>();
+    // cédula médico -> (día -> franjas ocupadas); los días sin citas no se guardan
+    private final Map<String, Map<LocalDate, Long>> ocupacionPorMedico = new HashMap<>();
+
+    /**
+     * Registra una cita ocupando el horario de un médico.
+     *
+     * @param cedulaMedico Cédula del médico
+     * @param inicio Fecha y hora de inicio de la cita
+     * @param idCita ID de la cita (puede ser null)
+     */
+    public synchronized void agregar(String cedulaMedico, LocalDateTime inicio, String idCita) {
+        horariosPorMedico
+                .computeIfAbsent(cedulaMedico, k -> new TreeMap<>())
+                .computeIfAbsent(inicio, k -> new ArrayList<>(1))
+                .add(idCita);
+        // Al agregar basta con encender bits; al quitar hay que recalcular el día
+        Map<LocalDate, Long> ocupacion = ocupacionPorMedico.computeIfAbsent(cedulaMedico, k -> new HashMap<>());
+        LocalDate dia = inicio.toLocalDate();
+        ocupacion.merge(dia, franjasBloqueadas(inicio, dia), (a, b) -> a | b);
+        long enDiaSiguiente = franjasBloqueadas(inicio, dia.plusDays(1));
+        if (enDiaSiguiente != 0) {
+            ocupacion.merge(dia.plusDays(1), enDiaSiguiente, (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * Libera el horario ocupado por una cita.
+     *
+     * @param cedulaMedico Cédula del médico
+     * @param inicio Fecha y hora de inicio de la cita
+     * @param idCita ID de la cita
+     */
+    public synchronized void quitar(String cedulaMedico, LocalDateTime inicio, String idCita) {
+        NavigableMap<LocalDateTime, List<String>> horarios = horariosPorMedico.get(cedulaMedico);
+        if (horarios == null) {
+            return;
+        }
+        List<String> ids = horarios.get(inicio);
+        if (ids == null) {
+            return;
+        }
+        ids.remove(idCita);
+        if (ids.isEmpty()) {
+            horarios.remove(inicio);
+            if (horarios.isEmpty()) {
+                horariosPorMedico.remove(cedulaMedico);
+            }
+            recalcularDia(cedulaMedico, inicio.toLocalDate());
+            if (franjasBloqueadas(inicio, inicio.toLocalDate().plusDays(1)) != 0) {
+                recalcularDia(cedulaMedico, inicio.toLocalDate().plusDays(1));
+            }
+        }
+    }
+
+    /**
+     * Marca a un médico como poseedor de una línea inválida con fecha ilegible.
+     * Por seguridad, cualquier horario de ese médico se considera en conflicto.
+     *
+     * @param cedulaMedico Cédula del médico
+     */
+    public synchronized void marcarFechaIlegible(String cedulaMedico) {
+        medicosConFechaIlegible.add(cedulaMedico);
+    }
+
+    /**
+     * Verifica si el bloque de 30 minutos que empieza en la fecha indicada se
+     * solapa con alguna cita ya registrada del médico, es decir, si existe una
+     * cita que empiece en (fecha - 30 min, fecha + 30 min).
+     *
+     * @param cedulaMedico Cédula del médico
+     * @param fecha Fecha y hora a verificar
+     * @param idCitaExcluir ID de cita a ignorar (para actualizaciones)
+     * @return true si hay conflicto, false si está disponible
+     */
+    public synchronized boolean hayConflicto(String cedulaMedico, LocalDateTime fecha, String idCitaExcluir) {
+        if (medicosConFechaIlegible.contains(cedulaMedico)) {
+            return true;
+        }
+        NavigableMap<LocalDateTime, List<String>> horarios = horariosPorMedico.get(cedulaMedico);
+        if (horarios == null) {
+            return false;
+        }
+        NavigableMap<LocalDateTime, List<String>> solapados
+                = horarios.subMap(fecha.minusMinutes(DURACION_CITA_MINUTOS), false,
+                        fecha.plusMinutes(DURACION_CITA_MINUTOS), false);
+        for (List<String> ids : solapados.values()) {
+            for (String id : ids) {
+                if (idCitaExcluir == null || !idCitaExcluir.equals(id)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene las franjas del día en las que una cita nueva del médico
+     * chocaría con otra. El bit i corresponde a la franja que empieza
+     * i * {@value #DURACION_CITA_MINUTOS} minutos después de la medianoche.
+     *
+     * @param cedulaMedico Cédula del médico
+     * @param dia Día a consultar
+     * @return Mapa de bits de franjas ocupadas; todas si el médico tiene una
+     * línea inválida con fecha ilegible
+     */
+    public synchronized long ocupacionDelDia(String cedulaMedico, LocalDate dia) {
+        if (medicosConFechaIlegible.contains(cedulaMedico)) {
+            return -1L;
+        }
+        Map<LocalDate, Long> ocupacion = ocupacionPorMedico.get(cedulaMedico);
+        if (ocupacion == null) {
+            return 0L;
+        }
+        Long franjas = ocupacion.get(dia);
+        return franjas == null ? 0L : franjas;
+    }
+
+    /**
+     * Obtiene las franjas que caen dentro de la jornada de atención.
+     *
+     * @return Mapa de bits con las franjas de la jornada encendidas
+     */
+    public static long franjasDeJornada() {
+        // La última franja debe terminar a más tardar al final de la jornada
+        return franjasEntre(INICIO_JORNADA.toSecondOfDay(), FIN_JORNADA.toSecondOfDay() - SEGUNDOS_FRANJA + 1);
+    }
+
+    /**
+     * Obtiene las franjas que empiezan en [desde, hasta), medidos en segundos
+     * desde la medianoche.
+     *
+     * @param desde Primer segundo permitido
+     * @param hasta Segundo límite (excluido)
+     * @return Mapa de bits con esas franjas encendidas
+     */
+    public static long franjasEntre(long desde, long hasta) {
+        int primera = (int) Math.max(0, Math.floorDiv(desde + SEGUNDOS_FRANJA - 1, SEGUNDOS_FRANJA));
+        int limite = (int) Math.min(FRANJAS_POR_DIA, Math.floorDiv(hasta + SEGUNDOS_FRANJA - 1, SEGUNDOS_FRANJA));
+        if (primera >= limite) {
+            return 0L;
+        }
+        return ((1L << limite) - 1) & ~((1L << primera) - 1);
+    }
+
+    /**
+     * Calcula las franjas del día que bloquea una cita que empieza en la hora
+     * indicada: una si empieza justo al inicio de una franja, dos si empieza
+     * a mitad de una (y puede caer en el día siguiente).
+     */
+    private static long franjasBloqueadas(LocalDateTime inicio, LocalDate dia) {
+        Duration desdeMedianoche = Duration.between(dia.atStartOfDay(), inicio);
+        long segundos = desdeMedianoche.getSeconds();
+        long franja = Math.floorDiv(segundos, SEGUNDOS_FRANJA);
+        boolean alineada = Math.floorMod(segundos, SEGUNDOS_FRANJA) == 0 && desdeMedianoche.getNano() == 0;
+        long bits = 0L;
+        if (franja >= 0 && franja < FRANJAS_POR_DIA) {
+            bits |= 1L << franja;
+        }
+        if (!alineada && franja + 1 >= 0 && franja + 1 < FRANJAS_POR_DIA) {
+            bits |= 1L << (franja + 1);
+        }
+        return bits;
+    }
+
+    /**
+     * Vuelve a calcular las franjas ocupadas de un día a partir del árbol,
+     * incluidas las citas de la noche anterior que alcanzan la medianoche.
+     */
+    private void recalcularDia(String cedulaMedico, LocalDate dia) {
+        long franjas = 0L;
+        NavigableMap<LocalDateTime, List<String>> horarios = horariosPorMedico.get(cedulaMedico);
+        if (horarios != null) {
+            LocalDateTime medianoche = dia.atStartOfDay();
+            for (LocalDateTime inicio : horarios.subMap(medianoche.minusMinutes(DURACION_CITA_MINUTOS), false,
+                    medianoche.plusDays(1), false).keySet()) {
+                franjas |= franjasBloqueadas(inicio, dia);
+            }
+        }
+        Map<LocalDate, Long> ocupacion = ocupacionPorMedico.get(cedulaMedico);
+        if (ocupacion == null) {
+            return;
+        }
+        if (franjas == 0L) {
+            ocupacion.remove(dia);
+            if (ocupacion.isEmpty()) {
+                ocupacionPorMedico.remove(cedulaMedico);
+            }
+        } else {
+            ocupacion.put(dia, franjas);
+        }
+    }
+
+    private static LocalTime leerHora(String propiedad, String porDefecto) {
+        String valor = System.getProperty(propiedad, porDefecto);
+        try {
+            return LocalTime.parse(valor.trim());
+        } catch (RuntimeException e) {
+            System.err.println("Hora de jornada invalida (" + propiedad + "=" + valor + "), se usara " + porDefecto);
+            return LocalTime.parse(porDefecto);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import com.mycompany.appclinica.Models.Cita;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de citas por ID. Los IDs con formato "CITA-XXXX" se guardan por su
+ * número en una tabla de enteros con direccionamiento abierto, sin crear
+ * objetos por cita ni comparar cadenas; buscar o quitar una cita cuesta O(1).
+ *
+ * Los IDs con otro formato (por ejemplo, escritos a mano en el archivo) van a
+ * un mapa aparte. Si dos citas comparten ID, la búsqueda devuelve la que se
+ * registró primero, igual que recorrer la lista en orden.
+ *
+ * El ID de una cita no debe cambiar mientras esté registrada. No es seguro
+ * para varios hilos por sí solo: CitaService lo usa siempre con su cerrojo
+ * tomado (de lectura para buscar, de escritura para agregar o quitar).
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class IndiceIds {
+
+    private int[] claves = new int[1024];
+    private Cita[] valores = new Cita[1024];
+    private int cantidad;
+    private final Map<String, Cita> otros = new HashMap<>();
+    // Citas cuyo ID ya estaba registrado; se promueven al quitar la primera
+    private final List<Cita> repetidas = new ArrayList<>();
+
+    /**
+     * Registra una cita bajo su ID.
+     *
+     * @param cita Cita a registrar
+     */
+    public void agregar(Cita cita) {
+        String id = cita.getId();
+        if (id == null) {
+            return;
+        }
+        int numero = GeneradorIdCitas.numeroCanonico(id);
+        boolean nueva = numero >= 0 ? ponerSiFalta(numero, cita) : otros.putIfAbsent(id, cita) == null;
+        if (!nueva) {
+            repetidas.add(cita);
+        }
+    }
+
+    /**
+     * Quita una cita del índice. Si otra cita tiene el mismo ID, esa pasa a
+     * ser la que se encuentra al buscar.
+     *
+     * @param cita Cita a quitar
+     */
+    public void quitar(Cita cita) {
+        String id = cita.getId();
+        if (id == null) {
+            return;
+        }
+        for (int i = 0; i < repetidas.size(); i++) {
+            if (repetidas.get(i) == cita) {
+                repetidas.remove(i);
+                return;
+            }
+        }
+        int numero = GeneradorIdCitas.numeroCanonico(id);
+        Cita registrada = numero >= 0 ? obtener(numero) : otros.get(id);
+        if (registrada != cita) {
+            return;
+        }
+        Cita siguiente = sacarRepetida(id);
+        if (numero >= 0) {
+            if (siguiente != null) {
+                valores[buscarRanura(numero)] = siguiente;
+            } else {
+                eliminar(numero);
+            }
+        } else if (siguiente != null) {
+            otros.put(id, siguiente);
+        } else {
+            otros.remove(id);
+        }
+    }
+
+    /**
+     * @param id ID de la cita
+     * @return La cita con ese ID, o null si no hay ninguna
+     */
+    public Cita buscar(String id) {
+        if (id == null) {
+            return null;
+        }
+        int numero = GeneradorIdCitas.numeroCanonico(id);
+        return numero >= 0 ? obtener(numero) : otros.get(id);
+    }
+
+    private Cita sacarRepetida(String id) {
+        for (int i = 0; i < repetidas.size(); i++) {
+            if (id.equals(repetidas.get(i).getId())) {
+                return repetidas.remove(i);
+            }
+        }
+        return null;
+    }
+
+    private Cita obtener(int numero) {
+        int i = buscarRanura(numero);
+        return i < 0 ? null : valores[i];
+    }
+
+    private int buscarRanura(int numero) {
+        int i = ranura(numero, claves.length);
+        while (valores[i] != null) {
+            if (claves[i] == numero) {
+                return i;
+            }
+            i = (i + 1) & (claves.length - 1);
+        }
+        return -1;
+    }
+
+    private boolean ponerSiFalta(int numero, Cita cita) {
+        if (buscarRanura(numero) >= 0) {
+            return false;
+        }
+        if (cantidad * 2 >= claves.length) {
+            crecer();
+        }
+        insertar(claves, valores, numero, cita);
+        cantidad++;
+        return true;
+    }
+
+    /**
+     * Borra la entrada y corre hacia atrás las que le siguen en la misma
+     * secuencia de sondeo, para que las búsquedas no se corten en el hueco.
+     */
+    private void eliminar(int numero) {
+        int hueco = buscarRanura(numero);
+        if (hueco < 0) {
+            return;
+        }
+        int mascara = claves.length - 1;
+        int i = hueco;
+        while (true) {
+            i = (i + 1) & mascara;
+            if (valores[i] == null) {
+                break;
+            }
+            int deseada = ranura(claves[i], claves.length);
+            // La entrada se puede mover al hueco si su ranura deseada no está entre el hueco y su posición
+            if (((i - deseada) & mascara) >= ((i - hueco) & mascara)) {
+                claves[hueco] = claves[i];
+                valores[hueco] = valores[i];
+                hueco = i;
+            }
+        }
+        valores[hueco] = null;
+        cantidad--;
+    }
+
+    private void crecer() {
+        int[] nuevasClaves = new int[claves.length * 2];
+        Cita[] nuevosValores = new Cita[valores.length * 2];
+        for (int i = 0; i < claves.length; i++) {
+            if (valores[i] != null) {
+                insertar(nuevasClaves, nuevosValores, claves[i], valores[i]);
+            }
+        }
+        claves = nuevasClaves;
+        valores = nuevosValores;
+    }
+
+    private static void insertar(int[] claves, Cita[] valores, int numero, Cita cita) {
+        int i = ranura(numero, claves.length);
+        while (valores[i] != null) {
+            i = (i + 1) & (claves.length - 1);
+        }
+        claves[i] = numero;
+        valores[i] = cita;
+    }
+
+    private static int ranura(int numero, int largo) {
+        int h = numero * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (largo - 1);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.EnumEstadoCita;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de citas por participante. Para cada cédula de paciente y de médico
+ * guarda sus citas en orden de inserción y cuántas de ellas están activas
+ * (pendientes o confirmadas), de modo que consultar las citas de una persona
+ * cuesta O(k) y saber si tiene citas activas cuesta O(1).
+ *
+ * Como las cuentas dependen del estado, quien cambie el estado de una cita
+ * indexada debe avisarlo con {@link #cambiarEstado(Cita, EnumEstadoCita)}.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class IndiceParticipantes {
+
+    private final Map<String, Entradas> porPaciente = new HashMap<>();
+    private final Map<String, Entradas> porMedico = new HashMap<>();
+
+    /**
+     * Indica si una cita en el estado dado cuenta como activa.
+     *
+     * @param estado Estado de la cita
+     * @return true si está pendiente o confirmada
+     */
+    public static boolean esActiva(EnumEstadoCita estado) {
+        return estado == EnumEstadoCita.PENDIENTE || estado == EnumEstadoCita.CONFIRMADA;
+    }
+
+    /**
+     * Registra una cita bajo la cédula de su paciente y la de su médico.
+     *
+     * @param cita Cita a registrar
+     */
+    public synchronized void agregar(Cita cita) {
+        if (cita.getPaciente() != null) {
+            porPaciente.computeIfAbsent(cita.getPaciente().getCedula(), k -> new Entradas()).agregar(cita);
+        }
+        if (cita.getMedico() != null) {
+            porMedico.computeIfAbsent(cita.getMedico().getCedula(), k -> new Entradas()).agregar(cita);
+        }
+    }
+
+    /**
+     * Quita una cita del índice. Debe llamarse antes de cambiar su paciente o
+     * su médico.
+     *
+     * @param cita Cita a quitar
+     */
+    public synchronized void quitar(Cita cita) {
+        if (cita.getPaciente() != null) {
+            quitar(porPaciente, cita.getPaciente().getCedula(), cita);
+        }
+        if (cita.getMedico() != null) {
+            quitar(porMedico, cita.getMedico().getCedula(), cita);
+        }
+    }
+
+    /**
+     * Actualiza las cuentas de citas activas después de que una cita cambió
+     * de estado.
+     *
+     * @param cita Cita que cambió de estado
+     * @param estadoAnterior Estado que tenía antes del cambio
+     */
+    public synchronized void cambiarEstado(Cita cita, EnumEstadoCita estadoAnterior) {
+        int diferencia = (esActiva(cita.getEstado()) ? 1 : 0) - (esActiva(estadoAnterior) ? 1 : 0);
+        if (diferencia == 0) {
+            return;
+        }
+        if (cita.getPaciente() != null) {
+            Entradas entradas = porPaciente.get(cita.getPaciente().getCedula());
+            if (entradas != null) {
+                entradas.activas += diferencia;
+            }
+        }
+        if (cita.getMedico() != null) {
+            Entradas entradas = porMedico.get(cita.getMedico().getCedula());
+            if (entradas != null) {
+                entradas.activas += diferencia;
+            }
+        }
+    }
+
+    /**
+     * @param cedula Cédula del paciente
+     * @return Citas del paciente, en orden de inserción
+     */
+    public synchronized List<Cita> porPaciente(String cedula) {
+        return copiar(porPaciente.get(cedula));
+    }
+
+    /**
+     * @param cedula Cédula del médico
+     * @return Citas del médico, en orden de inserción
+     */
+    public synchronized List<Cita> porMedico(String cedula) {
+        return copiar(porMedico.get(cedula));
+    }
+
+    /**
+     * Obtiene las citas en las que la cédula participa como paciente o como
+     * médico, sin repetir las que cumplen ambas condiciones.
+     *
+     * @param cedula Cédula a buscar
+     * @return Citas como paciente seguidas de las citas como médico
+     */
+    public synchronized List<Cita> porParticipante(String cedula) {
+        Entradas comoPaciente = porPaciente.get(cedula);
+        Entradas comoMedico = porMedico.get(cedula);
+        if (comoPaciente == null || comoMedico == null) {
+            return copiar(comoPaciente != null ? comoPaciente : comoMedico);
+        }
+        List<Cita> resultado = new ArrayList<>(comoPaciente.citas.size() + comoMedico.citas.size());
+        resultado.addAll(comoPaciente.citas);
+        Set<Cita> vistas = Collections.newSetFromMap(new IdentityHashMap<>());
+        vistas.addAll(comoPaciente.citas);
+        for (Cita cita : comoMedico.citas) {
+            if (!vistas.contains(cita)) {
+                resultado.add(cita);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @param cedula Cédula del paciente
+     * @return true si el paciente tiene citas pendientes o confirmadas
+     */
+    public synchronized boolean pacienteTieneActivas(String cedula) {
+        Entradas entradas = porPaciente.get(cedula);
+        return entradas != null && entradas.activas > 0;
+    }
+
+    /**
+     * @param cedula Cédula del médico
+     * @return true si el médico tiene citas pendientes o confirmadas
+     */
+    public synchronized boolean medicoTieneActivas(String cedula) {
+        Entradas entradas = porMedico.get(cedula);
+        return entradas != null && entradas.activas > 0;
+    }
+
+    private static void quitar(Map<String, Entradas> indice, String cedula, Cita cita) {
+        Entradas entradas = indice.get(cedula);
+        if (entradas != null && entradas.quitar(cita) && entradas.citas.isEmpty()) {
+            indice.remove(cedula);
+        }
+    }
+
+    private static List<Cita> copiar(Entradas entradas) {
+        return entradas == null ? new ArrayList<>() : new ArrayList<>(entradas.citas);
+    }
+
+    /**
+     * Citas de una persona y cuántas de ellas están activas.
+     */
+    private static final class Entradas {
+
+        final List<Cita> citas = new ArrayList<>(4);
+        int activas;
+
+        void agregar(Cita cita) {
+            citas.add(cita);
+            if (esActiva(cita.getEstado())) {
+                activas++;
+            }
+        }
+
+        boolean quitar(Cita cita) {
+            // Por identidad: dos citas distintas pueden compartir ID en archivos editados a mano
+            for (int i = 0; i < citas.size(); i++) {
+                if (citas.get(i) == cita) {
+                    citas.remove(i);
+                    if (esActiva(cita.getEstado())) {
+                        activas--;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Índice invertido de trigramas para buscar texto parcial ("contiene") en
+ * los nombres y apellidos sin recorrer toda la lista.
+ *
+ * Cada texto se normaliza una sola vez al indexarlo (minúsculas y sin
+ * tildes), y por cada trigrama se guarda la lista ordenada de elementos que
+ * lo contienen. Una búsqueda de tres o más letras intersecta las listas de
+ * sus trigramas, empezando por la más corta, y solo verifica esos
+ * candidatos. Las búsquedas de una o dos letras recorren los textos ya
+ * normalizados.
+ *
+ * Los resultados se ordenan por calidad de coincidencia: campo idéntico,
+ * campo que empieza con el texto, palabra que empieza con el texto y, por
+ * último, texto contenido. Los empates conservan el orden de inserción.
+ *
+ * Quitar un elemento deja un hueco en su posición. Cuando los huecos pasan
+ * de la mitad, las posiciones se compactan sin cambiar su orden relativo.
+ *
+ * @param <T> Tipo de elemento indexado
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class IndiceTrigramas<T> {
+
+    // Carácter latino (hasta Latín extendido B) -> carácter sin tilde, 0 si es una marca
+    private static final char[] SIN_TILDE = new char[0x250];
+
+    static {
+        for (char c = 0; c < SIN_TILDE.length; c++) {
+            String base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            SIN_TILDE[c] = base.length() == 1 ? base.charAt(0) : base.isEmpty() ? 0 : c;
+        }
+    }
+
+    private final List<Function<T, String>> campos;
+    // Posición -> elemento (null si se eliminó) y sus campos normalizados
+    private final List<T> elementos = new ArrayList<>();
+    private final List<String[]> textos = new ArrayList<>();
+    private final Map<T, Integer> posiciones = new IdentityHashMap<>();
+    // Trigrama (tres caracteres empaquetados) -> posiciones que lo contienen
+    private final TablaTrigramas trigramas = new TablaTrigramas();
+    // Posiciones con null que dejaron los elementos quitados
+    private int huecos;
+
+    /**
+     * Crea un índice sobre los campos de texto indicados.
+     *
+     * @param campos Funciones que obtienen cada campo a indexar
+     */
+    public IndiceTrigramas(List<Function<T, String>> campos) {
+        this.campos = List.copyOf(campos);
+    }
+
+    /**
+     * Normaliza un texto para comparar sin distinguir mayúsculas ni tildes.
+     *
+     * @param texto Texto original
+     * @return Texto en minúsculas y sin marcas diacríticas
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String minusculas = texto.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < minusculas.length() && minusculas.charAt(i) < 0x80) {
+            i++;
+        }
+        if (i == minusculas.length()) {
+            return minusculas;
+        }
+        // Letras latinas con tilde: se reemplazan con la tabla, sin pasar por Normalizer
+        StringBuilder sb = new StringBuilder(minusculas.length());
+        sb.append(minusculas, 0, i);
+        for (; i < minusculas.length(); i++) {
+            char c = minusculas.charAt(i);
+            if (c >= SIN_TILDE.length) {
+                return Normalizer.normalize(minusculas, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            }
+            if (SIN_TILDE[c] != 0) {
+                sb.append(SIN_TILDE[c]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Agrega un elemento al índice.
+     *
+     * @param elemento Elemento a agregar
+     */
+    public synchronized void agregar(T elemento) {
+        if (posiciones.containsKey(elemento)) {
+            actualizar(elemento);
+            return;
+        }
+        int posicion = elementos.size();
+        elementos.add(elemento);
+        textos.add(null);
+        posiciones.put(elemento, posicion);
+        indexar(posicion, elemento);
+    }
+
+    /**
+     * Vuelve a indexar un elemento cuyos campos cambiaron.
+     *
+     * @param elemento Elemento modificado
+     */
+    public synchronized void actualizar(T elemento) {
+        Integer posicion = posiciones.get(elemento);
+        if (posicion == null) {
+            agregar(elemento);
+            return;
+        }
+        desindexar(posicion);
+        indexar(posicion, elemento);
+    }
+
+    /**
+     * Quita un elemento del índice.
+     *
+     * @param elemento Elemento a quitar
+     */
+    public synchronized void quitar(T elemento) {
+        Integer posicion = posiciones.remove(elemento);
+        if (posicion == null) {
+            return;
+        }
+        desindexar(posicion);
+        elementos.set(posicion, null);
+        textos.set(posicion, null);
+        huecos++;
+        // Se compacta con un mínimo de huecos para no recorrer índices pequeños a cada rato
+        if (huecos > 64 && huecos * 2 > elementos.size()) {
+            compactar();
+        }
+    }
+
+    /**
+     * Corre los elementos hacia el inicio para eliminar los huecos. Las
+     * posiciones nuevas conservan el orden de las anteriores, así que las
+     * listas de cada trigrama siguen ordenadas y los empates mantienen el
+     * orden de inserción.
+     */
+    private void compactar() {
+        int[] nuevas = new int[elementos.size()];
+        int siguiente = 0;
+        for (int posicion = 0; posicion < elementos.size(); posicion++) {
+            T elemento = elementos.get(posicion);
+            if (elemento == null) {
+                continue;
+            }
+            nuevas[posicion] = siguiente;
+            elementos.set(siguiente, elemento);
+            textos.set(siguiente, textos.get(posicion));
+            posiciones.put(elemento, siguiente);
+            siguiente++;
+        }
+        elementos.subList(siguiente, elementos.size()).clear();
+        textos.subList(siguiente, textos.size()).clear();
+        huecos = 0;
+        // Las listas ya no contienen posiciones de elementos quitados
+        for (ListaPosiciones lista : trigramas.listas) {
+            if (lista != null) {
+                for (int i = 0; i < lista.tamanio; i++) {
+                    lista.posiciones[i] = nuevas[lista.posiciones[i]];
+                }
+            }
+        }
+    }
+
+    /**
+     * Busca los elementos con algún campo que contenga el texto, sin
+     * distinguir mayúsculas ni tildes, ordenados por calidad de coincidencia.
+     *
+     * @param texto Texto a buscar
+     * @return Elementos que coinciden, los mejores primero
+     */
+    public synchronized List<T> buscar(String texto) {
+        String buscado = normalizar(texto);
+        if (buscado.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Resultados agrupados por calidad (0 = mejor); cada grupo queda en orden de inserción
+        List<List<T>> grupos = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            grupos.add(new ArrayList<>());
+        }
+
+        if (buscado.length() < 3) {
+            for (int posicion = 0; posicion < textos.size(); posicion++) {
+                clasificar(posicion, buscado, grupos);
+            }
+        } else {
+            for (int posicion : candidatos(buscado)) {
+                clasificar(posicion, buscado, grupos);
+            }
+        }
+
+        List<T> resultados = new ArrayList<>();
+        for (List<T> grupo : grupos) {
+            resultados.addAll(grupo);
+        }
+        return resultados;
+    }
+
+    /**
+     * @return Cantidad de elementos indexados
+     */
+    public synchronized int tamanio() {
+        return posiciones.size();
+    }
+
+    private void clasificar(int posicion, String buscado, List<List<T>> grupos) {
+        String[] normalizados = textos.get(posicion);
+        if (normalizados == null) {
+            return;
+        }
+        int mejor = -1;
+        for (String campo : normalizados) {
+            int calidad = calidad(campo, buscado);
+            if (calidad >= 0 && (mejor < 0 || calidad < mejor)) {
+                mejor = calidad;
+            }
+        }
+        if (mejor >= 0) {
+            grupos.get(mejor).add(elementos.get(posicion));
+        }
+    }
+
+    /**
+     * @return 0 si el campo es igual, 1 si empieza con el texto, 2 si una
+     * palabra empieza con el texto, 3 si lo contiene, -1 si no lo contiene
+     */
+    private static int calidad(String campo, String buscado) {
+        int indice = campo.indexOf(buscado);
+        if (indice < 0) {
+            return -1;
+        }
+        if (indice == 0) {
+            return campo.length() == buscado.length() ? 0 : 1;
+        }
+        for (; indice > 0; indice = campo.indexOf(buscado, indice + 1)) {
+            if (!Character.isLetterOrDigit(campo.charAt(indice - 1))) {
+                return 2;
+            }
+        }
+        return 3;
+    }
+
+    /**
+     * Intersecta las listas de los trigramas del texto buscado.
+     */
+    private int[] candidatos(String buscado) {
+        long[] claves = trigramasDe(buscado);
+        ListaPosiciones[] listas = new ListaPosiciones[claves.length];
+        for (int i = 0; i < claves.length; i++) {
+            listas[i] = trigramas.get(claves[i]);
+            if (listas[i] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.tamanio, b.tamanio));
+        int[] resultado = Arrays.copyOf(listas[0].posiciones, listas[0].tamanio);
+        int cantidad = resultado.length;
+        for (int i = 1; i < listas.length && cantidad > 0; i++) {
+            int quedan = 0;
+            for (int j = 0; j < cantidad; j++) {
+                if (listas[i].contiene(resultado[j])) {
+                    resultado[quedan++] = resultado[j];
+                }
+            }
+            cantidad = quedan;
+        }
+        return Arrays.copyOf(resultado, cantidad);
+    }
+
+    private void indexar(int posicion, T elemento) {
+        String[] normalizados = new String[campos.size()];
+        for (int i = 0; i < normalizados.length; i++) {
+            normalizados[i] = normalizar(campos.get(i).apply(elemento));
+        }
+        textos.set(posicion, normalizados);
+        for (long clave : trigramasDe(normalizados)) {
+            trigramas.obtenerOCrear(clave).agregar(posicion);
+        }
+    }
+
+    private void desindexar(int posicion) {
+        String[] normalizados = textos.get(posicion);
+        if (normalizados == null) {
+            return;
+        }
+        for (long clave : trigramasDe(normalizados)) {
+            ListaPosiciones lista = trigramas.get(clave);
+            if (lista != null) {
+                lista.quitar(posicion);
+            }
+        }
+    }
+
+    /**
+     * Trigramas distintos de uno o varios textos, ya empaquetados.
+     */
+    private static long[] trigramasDe(String... textos) {
+        int total = 0;
+        for (String texto : textos) {
+            total += Math.max(texto.length() - 2, 0);
+        }
+        long[] claves = new long[total];
+        int n = 0;
+        for (String texto : textos) {
+            for (int i = 0; i + 3 <= texto.length(); i++) {
+                claves[n++] = ((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2);
+            }
+        }
+        Arrays.sort(claves);
+        int distintos = 0;
+        for (int i = 0; i < claves.length; i++) {
+            if (i == 0 || claves[i] != claves[i - 1]) {
+                claves[distintos++] = claves[i];
+            }
+        }
+        return Arrays.copyOf(claves, distintos);
+    }
+
+    /**
+     * Lista ordenada de posiciones, guardada en un arreglo de enteros para no
+     * crear un objeto por posición.
+     */
+    private static final class ListaPosiciones {
+
+        int[] posiciones = new int[4];
+        int tamanio;
+
+        void agregar(int posicion) {
+            if (tamanio == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, tamanio * 2);
+            }
+            // Casi siempre se agrega al final, porque las posiciones nuevas son las mayores
+            if (tamanio == 0 || posiciones[tamanio - 1] < posicion) {
+                posiciones[tamanio++] = posicion;
+                return;
+            }
+            int indice = Arrays.binarySearch(posiciones, 0, tamanio, posicion);
+            if (indice >= 0) {
+                return;
+            }
+            indice = -indice - 1;
+            System.arraycopy(posiciones, indice, posiciones, indice + 1, tamanio - indice);
+            posiciones[indice] = posicion;
+            tamanio++;
+        }
+
+        void quitar(int posicion) {
+            int indice = Arrays.binarySearch(posiciones, 0, tamanio, posicion);
+            if (indice >= 0) {
+                System.arraycopy(posiciones, indice + 1, posiciones, indice, tamanio - indice - 1);
+                tamanio--;
+            }
+        }
+
+        boolean contiene(int posicion) {
+            return Arrays.binarySearch(posiciones, 0, tamanio, posicion) >= 0;
+        }
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto de trigrama a lista de
+     * posiciones. Usa las claves como long sin envolverlas en objetos, porque
+     * al cargar se consultan decenas de millones de veces. Las listas vacías
+     * se conservan: el trigrama probablemente vuelva a aparecer.
+     */
+    private static final class TablaTrigramas {
+
+        long[] claves = new long[1024];
+        ListaPosiciones[] listas = new ListaPosiciones[1024];
+        int cantidad;
+
+        ListaPosiciones get(long clave) {
+            int i = ranura(clave, claves.length);
+            while (listas[i] != null) {
+                if (claves[i] == clave) {
+                    return listas[i];
+                }
+                i = (i + 1) & (claves.length - 1);
+            }
+            return null;
+        }
+
+        ListaPosiciones obtenerOCrear(long clave) {
+            ListaPosiciones lista = get(clave);
+            if (lista == null) {
+                if (cantidad * 2 >= claves.length) {
+                    crecer();
+                }
+                lista = new ListaPosiciones();
+                insertar(claves, listas, clave, lista);
+                cantidad++;
+            }
+            return lista;
+        }
+
+        private void crecer() {
+            long[] nuevasClaves = new long[claves.length * 2];
+            ListaPosiciones[] nuevasListas = new ListaPosiciones[listas.length * 2];
+            for (int i = 0; i < claves.length; i++) {
+                if (listas[i] != null) {
+                    insertar(nuevasClaves, nuevasListas, claves[i], listas[i]);
+                }
+            }
+            claves = nuevasClaves;
+            listas = nuevasListas;
+        }
+
+        private static void insertar(long[] claves, ListaPosiciones[] listas, long clave, ListaPosiciones lista) {
+            int i = ranura(clave, claves.length);
+            while (listas[i] != null) {
+                i = (i + 1) & (claves.length - 1);
+            }
+            claves[i] = clave;
+            listas[i] = lista;
+        }
+
+        private static int ranura(long clave, int largo) {
+            long h = clave * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 40) & (largo - 1);
+        }
+    }
+}
@@ -10,13 +10,17 @@ import com.mycompany.appclinica.Persistence.MedicoTxtDAO;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
 import java.util.stream.Collectors;
 
 /**
  * Servicio para gestionar operaciones CRUD de Médicos. Aplica el principio de
  * Responsabilidad Única (SRP): Solo se encarga de la lógica de negocio
- * relacionada con médicos.
+ * relacionada con médicos. Es seguro usarlo desde varios hilos.
  *
  * @author Alejandro Toro
  */
@@ -24,6 +28,16 @@ public class MedicoService {
 
     private final MedicoTxtDAO dao = new MedicoTxtDAO();
     private final List<Medico> medicos;
+    private final PersistenciaDiferida persistencia;
+    private final Map<String, Medico> indicePorCedula = new ConcurrentHashMap<>(); // Índice cédula -> medico para búsquedas O(1)
+    // Protege la lista y el índice por cédula: lecturas compartidas y escrituras
+    // exclusivas. No es reentrante, así que con el cerrojo tomado no se llama
+    // a otro método público del servicio.
+    private final StampedLock cerrojo = new StampedLock();
+    // Cédulas de las líneas inválidas del archivo; también cuentan como ocupadas.
+    // No cambian mientras el servicio vive, porque esas líneas se reescriben tal cual
+    private final Set<String> cedulasInvalidas;
+    private final IndiceTrigramas<Medico> indiceNombres = new IndiceTrigramas<>(List.of(Medico::getNombre, Medico::getApellido));
 
     /**
      * Constructor que inicializa la lista de médicos.
@@ -36,13 +50,49 @@ public class MedicoService {
             cargados = new ArrayList<>();
         }
         this.medicos = cargados;
+        this.persistencia = new PersistenciaDiferida("medicos", () -> dao.guardar(copiarMedicos()));
+        this.cedulasInvalidas = dao.obtenerCedulasInvalidas();
+        for (Medico m : cargados) {
+            // Ante cédulas repetidas se conserva la primera, igual que la búsqueda lineal
+            indicePorCedula.putIfAbsent(m.getCedula(), m);
+            indiceNombres.agregar(m);
+        }
     }
 
+    /**
+     * Solicita guardar los médicos en segundo plano. Varias solicitudes
+     * seguidas se agrupan en un único guardado.
+     */
     public void persistir() {
+        persistencia.solicitar();
+    }
+
+    /**
+     * Guarda de inmediato los cambios pendientes y espera a que terminen.
+     *
+     * @param timeoutMs Tiempo máximo de espera en milisegundos
+     * @return true si no quedó nada pendiente
+     */
+    public boolean vaciarPendientes(long timeoutMs) {
+        return persistencia.vaciar(timeoutMs);
+    }
+
+    /**
+     * Obtiene el persistidor en segundo plano, que informa solicitudes
+     * pendientes y latencia de guardado.
+     *
+     * @return Persistidor del servicio
+     */
+    public PersistenciaDiferida getPersistencia() {
+        return persistencia;
+    }
+
+    private List<Medico> copiarMedicos() {
+        long sello = cerrojo.readLock();
         try {
-            dao.guardar(medicos);
-        } catch (IOException e) {
-            System.err.println("Error guardando médicos: " + e.getMessage());
+            return new ArrayList<>(medicos);
+        } finally {
+            cerrojo.unlockRead(sello);
         }
     }
 
@@ -59,20 +109,25 @@ public class MedicoService {
             return false;
         }
 
+        if (cedulasInvalidas.contains(medico.getCedula())) {
+            System.err.println("Error: Ya existe un medico (válido o invalido) con la cedula " + medico.getCedula());
+            return false;
+        }
+
+        long sello = cerrojo.writeLock();
         try {
-            List<String> todasCedulas = dao.obtenerTodasLasCedulasIncluidoInvalidos();
-            if (todasCedulas.contains(medico.getCedula())) {
+            // La revisión y el alta van juntas con el cerrojo tomado: otro hilo pudo agregar la misma cédula
+            if (indicePorCedula.putIfAbsent(medico.getCedula(), medico) != null) {
                 System.err.println("Error: Ya existe un medico (válido o invalido) con la cedula " + medico.getCedula());
                 return false;
             }
-        } catch (IOException e) {
-            System.err.println("No se pudo revisar duplicidad de cedula: " + e.getMessage());
-            return false;
+            medicos.add(medico);
+            indiceNombres.agregar(medico);
+        } finally {
+            cerrojo.unlockWrite(sello);
         }
-
-        boolean res = medicos.add(medico);
         persistir();
-        return res;
+        return true;
     }
 
     /**
@@ -86,27 +141,23 @@ public class MedicoService {
             return Optional.empty();
         }
 
-        return medicos.stream()
-                .filter(m -> m.getCedula().equals(cedula))
-                .findFirst();
+        return Optional.ofNullable(indicePorCedula.get(cedula));
     }
 
     /**
-     * Busca médicos por nombre o apellido (búsqueda parcial).
+     * Busca médicos por nombre o apellido (búsqueda parcial), sin distinguir
+     * mayúsculas ni tildes, usando el índice de trigramas.
      *
      * @param texto Texto a buscar en nombre o apellido
-     * @return Lista de médicos que coinciden con el criterio
+     * @return Lista de médicos que coinciden, las mejores coincidencias
+     * primero
      */
     public List<Medico> buscarPorNombre(String texto) {
         if (texto == null || texto.trim().isEmpty()) {
             return new ArrayList<>();
         }
 
-        String textoBusqueda = texto.toLowerCase();
-        return medicos.stream()
-                .filter(m -> m.getNombre().toLowerCase().contains(textoBusqueda)
-                || m.getApellido().toLowerCase().contains(textoBusqueda))
-                .collect(Collectors.toList());
+        return indiceNombres.buscar(texto);
     }
 
     /**
@@ -120,9 +171,14 @@ public class MedicoService {
             return new ArrayList<>();
         }
 
-        return medicos.stream()
-                .filter(m -> m.getEspecialidad() == especialidad)
-                .collect(Collectors.toList());
+        long sello = cerrojo.readLock();
+        try {
+            return medicos.stream()
+                    .filter(m -> m.getEspecialidad() == especialidad)
+                    .collect(Collectors.toList());
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
     }
 
     /**
@@ -131,7 +187,7 @@ public class MedicoService {
      * @return Lista con todos los médicos (copia defensiva)
      */
     public List<Medico> listarTodos() {
-        return new ArrayList<>(medicos);
+        return copiarMedicos();
     }
 
     /**
@@ -148,13 +204,24 @@ public class MedicoService {
             return false;
         }
 
-        Optional<Medico> medicoOpt = buscarPorCedula(cedula);
-        if (medicoOpt.isPresent()) {
-            Medico medico = medicoOpt.get();
-            medico.setNombre(medicoActualizado.getNombre());
-            medico.setApellido(medicoActualizado.getApellido());
-            medico.setEspecialidad(medicoActualizado.getEspecialidad());
-            medico.setTelefono(medicoActualizado.getTelefono());
+        Medico medico = null;
+        if (cedula != null) {
+            // Se busca con el cerrojo tomado para no modificar un médico que otro hilo eliminó
+            long sello = cerrojo.writeLock();
+            try {
+                medico = indicePorCedula.get(cedula);
+                if (medico != null) {
+                    medico.setNombre(medicoActualizado.getNombre());
+                    medico.setApellido(medicoActualizado.getApellido());
+                    medico.setEspecialidad(medicoActualizado.getEspecialidad());
+                    medico.setTelefono(medicoActualizado.getTelefono());
+                    indiceNombres.actualizar(medico);
+                }
+            } finally {
+                cerrojo.unlockWrite(sello);
+            }
+        }
+        if (medico != null) {
             persistir();
             return true;
         }
@@ -170,7 +237,20 @@ public class MedicoService {
      * @return true si se eliminó exitosamente, false si no se encontró
      */
     public boolean eliminarMedico(String cedula) {
-        boolean eliminado = medicos.removeIf(m -> m.getCedula().equals(cedula));
+        List<Medico> eliminados = new ArrayList<>();
+        if (cedula != null) {
+            long sello = cerrojo.writeLock();
+            try {
+                medicos.removeIf(m -> m.getCedula().equals(cedula) && eliminados.add(m));
+                if (!eliminados.isEmpty()) {
+                    indicePorCedula.remove(cedula);
+                    eliminados.forEach(indiceNombres::quitar);
+                }
+            } finally {
+                cerrojo.unlockWrite(sello);
+            }
+        }
+        boolean eliminado = !eliminados.isEmpty();
 
         if (eliminado) {
             persistir();
@@ -186,7 +266,17 @@ public class MedicoService {
      * @return Número de médicos
      */
     public int contarMedicos() {
-        return medicos.size();
+        long sello = cerrojo.tryOptimisticRead();
+        int cantidad = medicos.size();
+        if (!cerrojo.validate(sello)) {
+            sello = cerrojo.readLock();
+            try {
+                cantidad = medicos.size();
+            } finally {
+                cerrojo.unlockRead(sello);
+            }
+        }
+        return cantidad;
     }
 
     /**
@@ -206,8 +296,13 @@ public class MedicoService {
      * @return Cantidad de médicos con esa especialidad
      */
     public long contarPorEspecialidad(EnumEspecialidad especialidad) {
-        return medicos.stream()
-                .filter(m -> m.getEspecialidad() == especialidad)
-                .count();
+        long sello = cerrojo.readLock();
+        try {
+            return medicos.stream()
+                    .filter(m -> m.getEspecialidad() == especialidad)
+                    .count();
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
     }
 }
@@ -9,13 +9,16 @@ import com.mycompany.appclinica.Persistence.PacienteTxtDAO;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Servicio para gestionar operaciones CRUD de Pacientes. Aplica el principio de
  * Responsabilidad Única (SRP): Solo se encarga de la lógica de negocio
- * relacionada con pacientes.
+ * relacionada con pacientes. Es seguro usarlo desde varios hilos.
  *
  * @author Samuel Castaño, Héctor Julián Ospina
  */
@@ -23,6 +26,16 @@ public class PacienteService {
 
     private final PacienteTxtDAO dao = new PacienteTxtDAO();
     private final List<Paciente> pacientes;
+    private final PersistenciaDiferida persistencia;
+    private final Map<String, Paciente> indicePorCedula = new ConcurrentHashMap<>(); // Índice cédula -> paciente para búsquedas O(1)
+    // Protege la lista y el índice por cédula: lecturas compartidas y escrituras
+    // exclusivas. No es reentrante, así que con el cerrojo tomado no se llama
+    // a otro método público del servicio.
+    private final StampedLock cerrojo = new StampedLock();
+    // Cédulas de las líneas inválidas del archivo; también cuentan como ocupadas.
+    // No cambian mientras el servicio vive, porque esas líneas se reescriben tal cual
+    private final Set<String> cedulasInvalidas;
+    private final IndiceTrigramas<Paciente> indiceNombres = new IndiceTrigramas<>(List.of(Paciente::getNombre, Paciente::getApellido));
 
     /**
      * Constructor que inicializa la lista de pacientes.
@@ -36,14 +49,49 @@ public class PacienteService {
             cargados = new ArrayList<>();
         }
         this.pacientes = cargados;
+        this.persistencia = new PersistenciaDiferida("pacientes", () -> dao.guardar(copiarPacientes()));
+        this.cedulasInvalidas = dao.obtenerCedulasInvalidas();
+        for (Paciente p : cargados) {
+            // Ante cédulas repetidas se conserva la primera, igual que la búsqueda lineal
+            indicePorCedula.putIfAbsent(p.getCedula(), p);
+            indiceNombres.agregar(p);
+        }
     }
 
+    /**
+     * Solicita guardar los pacientes en segundo plano. Varias solicitudes
+     * seguidas se agrupan en un único guardado.
+     */
     public void persistir() {
+        persistencia.solicitar();
+    }
+
+    /**
+     * Guarda de inmediato los cambios pendientes y espera a que terminen.
+     *
+     * @param timeoutMs Tiempo máximo de espera en milisegundos
+     * @return true si no quedó nada pendiente
+     */
+    public boolean vaciarPendientes(long timeoutMs) {
+        return persistencia.vaciar(timeoutMs);
+    }
+
+    /**
+     * Obtiene el persistidor en segundo plano, que informa solicitudes
+     * pendientes y latencia de guardado.
+     *
+     * @return Persistidor del servicio
+     */
+    public PersistenciaDiferida getPersistencia() {
+        return persistencia;
+    }
+
+    private List<Paciente> copiarPacientes() {
+        long sello = cerrojo.readLock();
         try {
-            dao.guardar(pacientes);
-        } catch (IOException e) {
-            // Muestra el error si ocurre
-            System.err.println("Error guardando pacientes: " + e.getMessage());
+            return new ArrayList<>(pacientes);
+        } finally {
+            cerrojo.unlockRead(sello);
         }
     }
 
@@ -60,20 +108,25 @@ public class PacienteService {
             return false;
         }
 
+        if (cedulasInvalidas.contains(paciente.getCedula())) {
+            System.err.println("Error: Ya existe un paciente (valido o invalido) con la cedula " + paciente.getCedula());
+            return false;
+        }
+
+        long sello = cerrojo.writeLock();
         try {
-            List<String> todasCedulas = dao.obtenerTodasLasCedulasIncluidoInvalidos();
-            if (todasCedulas.contains(paciente.getCedula())) {
+            // La revisión y el alta van juntas con el cerrojo tomado: otro hilo pudo agregar la misma cédula
+            if (indicePorCedula.putIfAbsent(paciente.getCedula(), paciente) != null) {
                 System.err.println("Error: Ya existe un paciente (valido o invalido) con la cedula " + paciente.getCedula());
                 return false;
             }
-        } catch (IOException e) {
-            System.err.println("No se pudo revisar duplicidad de cedula: " + e.getMessage());
-            return false;
+            pacientes.add(paciente);
+            indiceNombres.agregar(paciente);
+        } finally {
+            cerrojo.unlockWrite(sello);
         }
-
-        boolean res = pacientes.add(paciente);
         persistir();
-        return res;
+        return true;
     }
 
     /**
@@ -87,27 +140,24 @@ public class PacienteService {
             return Optional.empty();
         }
 
-        return pacientes.stream()
-                .filter(p -> p.getCedula().equals(cedula))
-                .findFirst();
+        return Optional.ofNullable(indicePorCedula.get(cedula));
     }
 
     /**
-     * Busca pacientes por nombre o apellido (búsqueda parcial).
+     * Busca pacientes por nombre o apellido (búsqueda parcial), sin
+     * distinguir mayúsculas ni tildes. Usa el índice de trigramas, así que no
+     * recorre toda la lista.
      *
      * @param texto Texto a buscar en nombre o apellido
-     * @return Lista de pacientes que coinciden con el criterio
+     * @return Lista de pacientes que coinciden, las mejores coincidencias
+     * primero
      */
     public List<Paciente> buscarPorNombre(String texto) {
         if (texto == null || texto.trim().isEmpty()) {
             return new ArrayList<>();
         }
 
-        String textoBusqueda = texto.toLowerCase();
-        return pacientes.stream()
-                .filter(p -> p.getNombre().toLowerCase().contains(textoBusqueda)
-                || p.getApellido().toLowerCase().contains(textoBusqueda))
-                .collect(Collectors.toList());
+        return indiceNombres.buscar(texto);
     }
 
     /**
@@ -116,7 +166,7 @@ public class PacienteService {
      * @return Lista con todos los pacientes (copia defensiva)
      */
     public List<Paciente> listarTodos() {
-        return new ArrayList<>(pacientes);
+        return copiarPacientes();
     }
 
     /**
@@ -134,13 +184,24 @@ public class PacienteService {
             return false;
         }
 
-        Optional<Paciente> pacienteOpt = buscarPorCedula(cedula);
-        if (pacienteOpt.isPresent()) {
-            Paciente paciente = pacienteOpt.get();
-            paciente.setNombre(pacienteActualizado.getNombre());
-            paciente.setApellido(pacienteActualizado.getApellido());
-            paciente.setTelefono(pacienteActualizado.getTelefono());
-            paciente.setFechaNacimiento(pacienteActualizado.getFechaNacimiento());
+        Paciente paciente = null;
+        if (cedula != null) {
+            // Se busca con el cerrojo tomado para no modificar un paciente que otro hilo eliminó
+            long sello = cerrojo.writeLock();
+            try {
+                paciente = indicePorCedula.get(cedula);
+                if (paciente != null) {
+                    paciente.setNombre(pacienteActualizado.getNombre());
+                    paciente.setApellido(pacienteActualizado.getApellido());
+                    paciente.setTelefono(pacienteActualizado.getTelefono());
+                    paciente.setFechaNacimiento(pacienteActualizado.getFechaNacimiento());
+                    indiceNombres.actualizar(paciente);
+                }
+            } finally {
+                cerrojo.unlockWrite(sello);
+            }
+        }
+        if (paciente != null) {
             persistir();
             return true;
         }
@@ -156,12 +217,25 @@ public class PacienteService {
      * @return true si se eliminó exitosamente, false si no se encontró
      */
     public boolean eliminarPaciente(String cedula) {
-        boolean eliminado = pacientes.removeIf(p -> p.getCedula().equals(cedula));
+        if (cedula == null) {
+            return false;
+        }
+        List<Paciente> eliminados = new ArrayList<>();
+        long sello = cerrojo.writeLock();
+        try {
+            pacientes.removeIf(p -> p.getCedula().equals(cedula) && eliminados.add(p));
+            if (!eliminados.isEmpty()) {
+                indicePorCedula.remove(cedula);
+                eliminados.forEach(indiceNombres::quitar);
+            }
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
 
-        if (eliminado) {
+        if (!eliminados.isEmpty()) {
             persistir();
         }
-        return eliminado;
+        return !eliminados.isEmpty();
     }
         /**
          * Obtiene la cantidad total de pacientes registrados.
@@ -169,7 +243,17 @@ public class PacienteService {
          * @return Número de pacientes
          */
     public int contarPacientes() {
-        return pacientes.size();
+        long sello = cerrojo.tryOptimisticRead();
+        int cantidad = pacientes.size();
+        if (!cerrojo.validate(sello)) {
+            sello = cerrojo.readLock();
+            try {
+                cantidad = pacientes.size();
+            } finally {
+                cerrojo.unlockRead(sello);
+            }
+        }
+        return cantidad;
     }
 
     /**
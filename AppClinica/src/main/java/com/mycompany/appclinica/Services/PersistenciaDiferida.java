@@ -0,0 +1,203 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import com.mycompany.appclinica.Persistence.ConfiguracionPersistencia;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistencia en segundo plano (write-behind) para un servicio. Las
+ * solicitudes de guardado no bloquean al hilo que las hace (normalmente el
+ * hilo de eventos de Swing): se agrupan durante un breve retraso y se
+ * resuelven con un único guardado en un hilo propio. Si un guardado falla se
+ * reintenta solo, con una espera que crece en cada fallo seguido, y el error
+ * queda disponible para mostrarlo en la interfaz.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+public class PersistenciaDiferida {
+
+    /**
+     * Operación que toma una copia de los datos y la guarda en disco.
+     */
+    public interface Guardado {
+
+        void guardar() throws IOException;
+    }
+
+    private static final long ESPERA_INICIAL_REINTENTO_MS = 500;
+    private static final long ESPERA_MAXIMA_REINTENTO_MS = 30_000;
+
+    private final String nombre;
+    private final Guardado guardado;
+    private final ScheduledExecutorService hilo;
+    private final AtomicBoolean programado = new AtomicBoolean(false);
+    private final AtomicInteger pendientes = new AtomicInteger(0);
+    private volatile long ultimaLatenciaMs = 0;
+    private volatile long latenciaTotalMs = 0;
+    private volatile int guardadosRealizados = 0;
+    private volatile int fallosSeguidos = 0;
+    private volatile String ultimoError = null;
+
+    /**
+     * Crea el persistidor y registra un hook para guardar lo pendiente al
+     * cerrar la aplicación.
+     *
+     * @param nombre Nombre de los datos (para mensajes y el nombre del hilo)
+     * @param guardado Operación de guardado
+     */
+    public PersistenciaDiferida(String nombre, Guardado guardado) {
+        this.nombre = nombre;
+        this.guardado = guardado;
+        this.hilo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "persistencia-" + nombre);
+            t.setDaemon(true);
+            return t;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::cerrar, "cierre-persistencia-" + nombre));
+    }
+
+    /**
+     * Solicita un guardado. Si ya hay uno programado, la solicitud se agrupa
+     * con él.
+     */
+    public void solicitar() {
+        pendientes.incrementAndGet();
+        if (programado.compareAndSet(false, true)) {
+            hilo.schedule(this::guardarPendientes,
+                    ConfiguracionPersistencia.RETRASO_GUARDADO_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void guardarPendientes() {
+        // Las solicitudes que lleguen durante el guardado programan uno nuevo
+        programado.set(false);
+        int atendidas = pendientes.get();
+        if (atendidas == 0) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            guardado.guardar();
+            pendientes.addAndGet(-atendidas);
+            fallosSeguidos = 0;
+            ultimoError = null;
+        } catch (IOException | RuntimeException e) {
+            fallosSeguidos++;
+            ultimoError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            System.err.println("Error guardando " + nombre + " (intento " + fallosSeguidos + "): " + ultimoError);
+            programarReintento();
+        }
+        ultimaLatenciaMs = (System.nanoTime() - inicio) / 1_000_000;
+        latenciaTotalMs += ultimaLatenciaMs;
+        guardadosRealizados++;
+    }
+
+    /**
+     * Vuelve a programar un guardado que falló. La espera se duplica con cada
+     * fallo seguido, hasta {@value #ESPERA_MAXIMA_REINTENTO_MS} ms, para no
+     * insistir sin pausa si el disco está lleno o el archivo bloqueado.
+     */
+    private void programarReintento() {
+        if (!programado.compareAndSet(false, true)) {
+            return; // Ya hay un guardado programado por una solicitud nueva
+        }
+        long espera = Math.min(ESPERA_INICIAL_REINTENTO_MS << Math.min(fallosSeguidos - 1, 16),
+                ESPERA_MAXIMA_REINTENTO_MS);
+        try {
+            hilo.schedule(this::guardarPendientes, espera, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // El persistidor ya se cerró
+            programado.set(false);
+        }
+    }
+
+    /**
+     * Guarda de inmediato lo pendiente y espera a que termine.
+     *
+     * @param timeoutMs Tiempo máximo de espera en milisegundos
+     * @return true si no quedó nada pendiente, false si se agotó el tiempo
+     */
+    public boolean vaciar(long timeoutMs) {
+        if (hilo.isShutdown()) {
+            return pendientes.get() == 0;
+        }
+        try {
+            hilo.submit(this::guardarPendientes).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("No se pudo completar el guardado de " + nombre + ": " + e.getMessage());
+        }
+        return pendientes.get() == 0;
+    }
+
+    /**
+     * Guarda lo pendiente y detiene el hilo de persistencia.
+     */
+    public void cerrar() {
+        vaciar(ConfiguracionPersistencia.TIEMPO_MAX_CIERRE_MS);
+        hilo.shutdown();
+    }
+
+    /**
+     * @return Cantidad de solicitudes de guardado aún no escritas en disco
+     */
+    public int getPendientes() {
+        return pendientes.get();
+    }
+
+    /**
+     * @return Nombre de los datos que guarda este persistidor
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @return Mensaje del último guardado fallido, o null si el último
+     * guardado terminó bien (hay cambios sin guardar mientras no sea null)
+     */
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    /**
+     * @return Cantidad de guardados fallidos seguidos
+     */
+    public int getFallosSeguidos() {
+        return fallosSeguidos;
+    }
+
+    /**
+     * @return Duración del último guardado en milisegundos
+     */
+    public long getUltimaLatenciaMs() {
+        return ultimaLatenciaMs;
+    }
+
+    /**
+     * @return Duración promedio de los guardados en milisegundos
+     */
+    public long getLatenciaPromedioMs() {
+        int realizados = guardadosRealizados;
+        return realizados == 0 ? 0 : latenciaTotalMs / realizados;
+    }
+
+    /**
+     * @return Cantidad de guardados ejecutados
+     */
+    public int getGuardadosRealizados() {
+        return guardadosRealizados;
+    }
+}
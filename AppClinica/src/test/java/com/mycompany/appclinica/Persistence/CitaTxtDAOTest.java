@@ -0,0 +1,155 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.EnumEstadoCita;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import com.mycompany.appclinica.Services.MedicoService;
+import com.mycompany.appclinica.Services.PacienteService;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Prueba la bitácora de CitaTxtDAO: los cambios se anexan, se vuelven a
+ * aplicar al cargar y se compactan en el archivo base, también cuando la
+ * aplicación se detiene entre el sellado y la compactación.
+ *
+ * Los archivos se escriben en la carpeta de datos que configura surefire
+ * (appclinica.datos.dir), dentro de target.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+class CitaTxtDAOTest {
+
+    private static final Path DATOS = Paths.get(ConfiguracionPersistencia.DIRECTORIO_DATOS);
+    private static final Path BASE = DATOS.resolve("citas.txt");
+    private static final Path BITACORA = DATOS.resolve("citas_bitacora.txt");
+    private static final Path BITACORA_SELLADA = DATOS.resolve("citas_bitacora_sellada.txt");
+    private static final LocalDateTime FECHA = LocalDateTime.of(2030, 3, 10, 9, 0);
+
+    private Paciente paciente;
+    private Medico medico;
+    private CitaTxtDAO dao;
+
+    @BeforeEach
+    void prepararDatos() throws IOException {
+        Files.createDirectories(DATOS);
+        Files.write(DATOS.resolve("pacientes.txt"), List.of("1000000000,Ana,Perez,3000000000,1990-01-01"), StandardCharsets.UTF_8);
+        Files.write(DATOS.resolve("medicos.txt"), List.of("80000000,Luis,Gomez,MEDICINA_GENERAL,3100000000"), StandardCharsets.UTF_8);
+        Files.deleteIfExists(BASE);
+        Files.deleteIfExists(BITACORA);
+        Files.deleteIfExists(BITACORA_SELLADA);
+        dao = nuevoDao();
+    }
+
+    @Test
+    void losCambiosSeAnexanYSeAplicanAlCargar() throws IOException {
+        dao.guardar(List.of(cita("CITA-0001", "control", EnumEstadoCita.PENDIENTE),
+                cita("CITA-0002", "control", EnumEstadoCita.PENDIENTE)));
+
+        dao.registrarCambio(cita("CITA-0001", "revisión de exámenes", EnumEstadoCita.COMPLETADA));
+        dao.registrarCambio(cita("CITA-0003", "vacunación", EnumEstadoCita.PENDIENTE));
+        dao.registrarEliminacion("CITA-0002");
+
+        List<String> registros = Files.readAllLines(BITACORA, StandardCharsets.UTF_8);
+        assertEquals(3, registros.size(), "un registro por cambio");
+        assertTrue(registros.get(0).startsWith("U,CITA-0001,"), registros.get(0));
+        assertEquals("D,CITA-0002", registros.get(2));
+        assertEquals(2, Files.readAllLines(BASE, StandardCharsets.UTF_8).size(), "el archivo base no se reescribe");
+
+        List<Cita> cargadas = nuevoDao().cargar(1);
+        assertEquals(List.of("CITA-0001", "CITA-0003"), ids(cargadas));
+        assertEquals("revisión de exámenes", cargadas.get(0).getMotivo());
+        assertEquals(EnumEstadoCita.COMPLETADA, cargadas.get(0).getEstado());
+        assertEquals("vacunación", cargadas.get(1).getMotivo());
+    }
+
+    @Test
+    void compactarIncluyeLaBitacoraSelladaEnElArchivoBase() throws IOException {
+        dao.guardar(List.of(cita("CITA-0001", "control", EnumEstadoCita.PENDIENTE)));
+        dao.registrarCambio(cita("CITA-0002", "control", EnumEstadoCita.PENDIENTE));
+
+        // La copia se toma al sellar; el cambio siguiente ya va a una bitácora nueva
+        List<Cita> copia = nuevoDao().cargar(1);
+        dao.sellarBitacora();
+        assertTrue(Files.exists(BITACORA_SELLADA), "bitácora sellada");
+        assertFalse(Files.exists(BITACORA), "la bitácora actual empieza vacía");
+        dao.registrarCambio(cita("CITA-0003", "control", EnumEstadoCita.PENDIENTE));
+
+        dao.compactar(copia);
+
+        assertFalse(Files.exists(BITACORA_SELLADA), "la bitácora sellada se descarta al compactar");
+        List<String> base = Files.readAllLines(BASE, StandardCharsets.UTF_8);
+        assertEquals(2, base.size(), "la copia quedó en el archivo base");
+        assertTrue(base.get(1).startsWith("CITA-0002,"), base.get(1));
+        assertEquals(1, Files.readAllLines(BITACORA, StandardCharsets.UTF_8).size(), "el cambio posterior sigue en la bitácora");
+        assertEquals(List.of("CITA-0001", "CITA-0002", "CITA-0003"), ids(nuevoDao().cargar(1)));
+    }
+
+    @Test
+    void unCorteAntesDeCompactarNoPierdeCambios() throws IOException {
+        dao.guardar(List.of(cita("CITA-0001", "control", EnumEstadoCita.PENDIENTE),
+                cita("CITA-0002", "control", EnumEstadoCita.PENDIENTE)));
+        dao.registrarCambio(cita("CITA-0001", "primera versión", EnumEstadoCita.PENDIENTE));
+        dao.sellarBitacora();
+        dao.registrarCambio(cita("CITA-0001", "segunda versión", EnumEstadoCita.CANCELADA));
+        dao.registrarEliminacion("CITA-0002");
+        // La aplicación se detiene aquí: no se llega a compactar
+
+        CitaTxtDAO reiniciado = nuevoDao();
+        List<Cita> cargadas = reiniciado.cargar(1);
+        assertEquals(List.of("CITA-0001"), ids(cargadas));
+        assertEquals("segunda versión", cargadas.get(0).getMotivo(), "la bitácora actual va después de la sellada");
+        assertEquals(EnumEstadoCita.CANCELADA, cargadas.get(0).getEstado());
+
+        // El siguiente sellado agrega los registros a la sellada que quedó, sin perder los anteriores
+        reiniciado.sellarBitacora();
+        assertFalse(Files.exists(BITACORA));
+        assertEquals(3, Files.readAllLines(BITACORA_SELLADA, StandardCharsets.UTF_8).size());
+        reiniciado.compactar(cargadas);
+        assertFalse(Files.exists(BITACORA_SELLADA));
+        List<Cita> compactadas = nuevoDao().cargar(1);
+        assertEquals(List.of("CITA-0001"), ids(compactadas));
+        assertEquals("segunda versión", compactadas.get(0).getMotivo());
+    }
+
+    /**
+     * DAO nuevo, como al iniciar la aplicación, con pacientes y médicos
+     * cargados de la carpeta de datos.
+     */
+    private CitaTxtDAO nuevoDao() {
+        PacienteService pacienteService = new PacienteService();
+        MedicoService medicoService = new MedicoService();
+        paciente = pacienteService.buscarPorCedula("1000000000").orElseThrow();
+        medico = medicoService.buscarPorCedula("80000000").orElseThrow();
+        return new CitaTxtDAO(pacienteService, medicoService);
+    }
+
+    private Cita cita(String id, String motivo, EnumEstadoCita estado) {
+        return new Cita(id, paciente, medico, motivo, estado, FECHA);
+    }
+
+    private static List<String> ids(List<Cita> citas) {
+        List<String> ids = new ArrayList<>();
+        for (Cita c : citas) {
+            ids.add(c.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.EnumEspecialidad;
+import com.mycompany.appclinica.Models.EnumEstadoCita;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara IndiceEstados con una lista de citas que se filtra por estado y se
+ * ordena por número en cada consulta, después de cada alta, baja o cambio de
+ * estado de una secuencia aleatoria.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+class IndiceEstadosTest {
+
+    private static final Paciente PACIENTE = new Paciente("1000000000", "Ana", "Pérez", "3000000000", LocalDate.of(1990, 1, 1));
+    private static final Medico MEDICO = new Medico("80000000", "Luis", "Gómez", EnumEspecialidad.MEDICINA_GENERAL, "3100000000");
+    private static final LocalDateTime FECHA = LocalDate.of(2030, 3, 10).atTime(9, 0);
+    private static final EnumEstadoCita[] ESTADOS = EnumEstadoCita.values();
+
+    /**
+     * Cita registrada en la lista de referencia con el estado que tiene en el
+     * índice.
+     */
+    private static final class Registro {
+        final Cita cita;
+        EnumEstadoCita estado;
+
+        Registro(Cita cita, EnumEstadoCita estado) {
+            this.cita = cita;
+            this.estado = estado;
+        }
+    }
+
+    @Test
+    void coincideConFiltrarYOrdenarLaLista() {
+        Random random = new Random(20300313L);
+        IndiceEstados indice = new IndiceEstados();
+        List<Registro> referencia = new ArrayList<>();
+
+        for (int paso = 0; paso < 3000; paso++) {
+            int accion = referencia.isEmpty() ? 0 : random.nextInt(3);
+            if (accion == 0) {
+                // Pocos números posibles, para que haya IDs repetidos como en un archivo editado a mano
+                Cita cita = new Cita(GeneradorIdCitas.formatear(1 + random.nextInt(400)), PACIENTE, MEDICO, "",
+                        elegir(random), FECHA);
+                indice.agregar(cita);
+                referencia.add(new Registro(cita, cita.getEstado()));
+            } else if (accion == 1) {
+                indice.quitar(referencia.remove(random.nextInt(referencia.size())).cita);
+            } else {
+                Registro cambiado = referencia.get(random.nextInt(referencia.size()));
+                EnumEstadoCita anterior = cambiado.estado;
+                cambiado.cita.setEstado(elegir(random));
+                cambiado.estado = cambiado.cita.getEstado();
+                indice.mover(cambiado.cita, anterior);
+                // Al moverse pasa al final de los registrados con su número
+                referencia.remove(cambiado);
+                referencia.add(cambiado);
+            }
+
+            EnumEstadoCita estado = elegir(random);
+            List<Cita> esperadas = listar(referencia, estado);
+            List<Cita> obtenidas = indice.listar(estado);
+            assertEquals(esperadas.size(), indice.contar(estado), "contar(" + estado + ") en el paso " + paso);
+            assertEquals(esperadas.size(), obtenidas.size(), "listar(" + estado + ") en el paso " + paso);
+            for (int i = 0; i < esperadas.size(); i++) {
+                assertSame(esperadas.get(i), obtenidas.get(i), "listar(" + estado + ") en el paso " + paso + ": posición " + i);
+            }
+        }
+    }
+
+    /**
+     * Citas del estado ordenadas por número; las de un mismo número quedan en
+     * orden de registro porque el ordenamiento es estable.
+     */
+    private static List<Cita> listar(List<Registro> referencia, EnumEstadoCita estado) {
+        List<Cita> citas = new ArrayList<>();
+        for (Registro r : referencia) {
+            if (r.estado == estado) {
+                citas.add(r.cita);
+            }
+        }
+        citas.sort(Comparator.comparingInt(c -> GeneradorIdCitas.extraerNumero(c.getId())));
+        return citas;
+    }
+
+    private static EnumEstadoCita elegir(Random random) {
+        return ESTADOS[random.nextInt(ESTADOS.length)];
+    }
+}
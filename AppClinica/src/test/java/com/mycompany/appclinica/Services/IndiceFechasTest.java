@@ -0,0 +1,132 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.EnumEspecialidad;
+import com.mycompany.appclinica.Models.EnumEstadoCita;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara IndiceFechas con una lista de citas que se filtra y ordena en cada
+ * consulta, después de cada alta o baja de una secuencia aleatoria.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+class IndiceFechasTest {
+
+    private static final Paciente PACIENTE = new Paciente("1000000000", "Ana", "Pérez", "3000000000", LocalDate.of(1990, 1, 1));
+    private static final Medico MEDICO = new Medico("80000000", "Luis", "Gómez", EnumEspecialidad.MEDICINA_GENERAL, "3100000000");
+    private static final LocalDateTime INICIO = LocalDate.of(2030, 3, 10).atStartOfDay();
+
+    /**
+     * Cita registrada en la lista de referencia, con la fecha que se usó al
+     * registrarla.
+     */
+    private static final class Registro {
+        final LocalDateTime fecha;
+        final Cita cita;
+
+        Registro(LocalDateTime fecha, Cita cita) {
+            this.fecha = fecha;
+            this.cita = cita;
+        }
+    }
+
+    @Test
+    void coincideConFiltrarLaLista() {
+        Random random = new Random(20300311L);
+        IndiceFechas indice = new IndiceFechas();
+        List<Registro> referencia = new ArrayList<>();
+        int numero = 0;
+
+        for (int paso = 0; paso < 3000; paso++) {
+            if (referencia.isEmpty() || random.nextInt(3) > 0) {
+                LocalDateTime fecha = fechaAleatoria(random);
+                Cita cita = new Cita(GeneradorIdCitas.formatear(++numero), PACIENTE, MEDICO, "", EnumEstadoCita.PENDIENTE, fecha);
+                indice.agregar(fecha, cita);
+                referencia.add(new Registro(fecha, cita));
+            } else if (random.nextInt(5) > 0) {
+                Registro quitado = referencia.remove(random.nextInt(referencia.size()));
+                indice.quitar(quitado.fecha, quitado.cita);
+            } else {
+                // Una cita que no está registrada (o con otra fecha) no se quita
+                Registro existente = referencia.get(random.nextInt(referencia.size()));
+                indice.quitar(existente.fecha.plusMinutes(30), existente.cita);
+            }
+
+            for (int consulta = 0; consulta < 5; consulta++) {
+                LocalDateTime desde = fechaAleatoria(random);
+                LocalDateTime hasta = desde.plusMinutes(30L * random.nextInt(200));
+                if (random.nextInt(10) == 0) {
+                    hasta = desde.minusMinutes(30); // Rango invertido: sin resultados
+                }
+                assertMismasCitas(buscar(referencia, desde, hasta), indice.buscar(desde, hasta),
+                        "buscar(" + desde + ", " + hasta + ") en el paso " + paso);
+            }
+        }
+    }
+
+    @Test
+    void citasConLaMismaFechaConservanElOrdenDeInsercion() {
+        IndiceFechas indice = new IndiceFechas();
+        List<Cita> esperadas = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Cita cita = new Cita(GeneradorIdCitas.formatear(i), PACIENTE, MEDICO, "", EnumEstadoCita.PENDIENTE, INICIO);
+            indice.agregar(INICIO, cita);
+            esperadas.add(cita);
+        }
+        indice.quitar(INICIO, esperadas.remove(2));
+
+        assertMismasCitas(esperadas, indice.buscar(INICIO, INICIO), "grupo de la misma fecha");
+        assertTrue(indice.buscar(INICIO.plusMinutes(1), INICIO.plusDays(1)).isEmpty(), "rango sin citas");
+    }
+
+    /**
+     * Citas del rango [desde, hasta] ordenadas por fecha; las de la misma
+     * fecha quedan en orden de inserción porque el ordenamiento es estable.
+     */
+    private static List<Cita> buscar(List<Registro> referencia, LocalDateTime desde, LocalDateTime hasta) {
+        List<Registro> enRango = new ArrayList<>();
+        for (Registro r : referencia) {
+            if (!r.fecha.isBefore(desde) && !r.fecha.isAfter(hasta)) {
+                enRango.add(r);
+            }
+        }
+        enRango.sort(Comparator.comparing((Registro r) -> r.fecha));
+        List<Cita> citas = new ArrayList<>();
+        for (Registro r : enRango) {
+            citas.add(r.cita);
+        }
+        return citas;
+    }
+
+    private static void assertMismasCitas(List<Cita> esperadas, List<Cita> obtenidas, String mensaje) {
+        assertEquals(esperadas.size(), obtenidas.size(), mensaje + ": cantidad");
+        for (int i = 0; i < esperadas.size(); i++) {
+            assertSame(esperadas.get(i), obtenidas.get(i), mensaje + ": posición " + i);
+        }
+    }
+
+    /**
+     * Fechas en medias horas de una semana, para que varias citas compartan
+     * fecha de inicio.
+     */
+    private static LocalDateTime fechaAleatoria(Random random) {
+        return INICIO.plusMinutes(30L * random.nextInt(7 * 48));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara IndiceHorarios con una lista de citas que se recorre completa en
+ * cada consulta, después de cada alta o baja de una secuencia aleatoria.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+class IndiceHorariosTest {
+
+    private static final String[] MEDICOS = {"80000000", "80000001", "80000002"};
+    private static final LocalDate PRIMER_DIA = LocalDate.of(2030, 3, 10);
+    private static final int DIAS = 3;
+
+    /**
+     * Horario registrado en la lista de referencia.
+     */
+    private static final class Horario {
+        final String medico;
+        final LocalDateTime inicio;
+        final String id;
+
+        Horario(String medico, LocalDateTime inicio, String id) {
+            this.medico = medico;
+            this.inicio = inicio;
+            this.id = id;
+        }
+    }
+
+    @Test
+    void coincideConRecorrerLasCitas() {
+        Random random = new Random(20300310L);
+        IndiceHorarios indice = new IndiceHorarios();
+        List<Horario> referencia = new ArrayList<>();
+
+        for (int paso = 0; paso < 3000; paso++) {
+            if (referencia.isEmpty() || random.nextBoolean()) {
+                Horario nuevo = new Horario(elegir(random, MEDICOS), fechaAleatoria(random), idAleatorio(random));
+                indice.agregar(nuevo.medico, nuevo.inicio, nuevo.id);
+                referencia.add(nuevo);
+            } else if (random.nextInt(5) > 0) {
+                Horario quitado = referencia.remove(random.nextInt(referencia.size()));
+                indice.quitar(quitado.medico, quitado.inicio, quitado.id);
+            } else {
+                // Quitar un horario que no está registrado no debe cambiar nada
+                indice.quitar(elegir(random, MEDICOS), fechaAleatoria(random), "CITA-9999");
+            }
+
+            for (int consulta = 0; consulta < 5; consulta++) {
+                String medico = elegir(random, MEDICOS);
+                LocalDateTime fecha = fechaAleatoria(random);
+                String excluir = random.nextBoolean() ? null : idAleatorio(random);
+                assertEquals(hayConflicto(referencia, medico, fecha, excluir),
+                        indice.hayConflicto(medico, fecha, excluir),
+                        "hayConflicto(" + medico + ", " + fecha + ", " + excluir + ") en el paso " + paso);
+            }
+            // Se incluye el día siguiente al último, al que llegan las citas de cerca de medianoche
+            String medico = elegir(random, MEDICOS);
+            LocalDate dia = PRIMER_DIA.plusDays(random.nextInt(DIAS + 1));
+            assertEquals(ocupacion(referencia, medico, dia), indice.ocupacionDelDia(medico, dia),
+                    "ocupacionDelDia(" + medico + ", " + dia + ") en el paso " + paso);
+        }
+    }
+
+    @Test
+    void chocaConLasCitasQueEmpiezanMenosDeMediaHoraAntesODespues() {
+        IndiceHorarios indice = new IndiceHorarios();
+        indice.agregar("80000000", PRIMER_DIA.atTime(10, 15), "CITA-0001");
+
+        // Antes del índice solo se rechazaban las horas en [10:15, 10:45), y 10:00 quedaba solapada
+        assertTrue(indice.hayConflicto("80000000", PRIMER_DIA.atTime(10, 0), null), "10:00 termina después de 10:15");
+        assertTrue(indice.hayConflicto("80000000", PRIMER_DIA.atTime(10, 15), null), "misma hora");
+        assertTrue(indice.hayConflicto("80000000", PRIMER_DIA.atTime(10, 30), null), "10:30 empieza antes de 10:45");
+        assertFalse(indice.hayConflicto("80000000", PRIMER_DIA.atTime(9, 45), null), "9:45 termina justo a las 10:15");
+        assertFalse(indice.hayConflicto("80000000", PRIMER_DIA.atTime(10, 45), null), "10:45 empieza justo al terminar");
+        assertFalse(indice.hayConflicto("80000000", PRIMER_DIA.atTime(10, 0), "CITA-0001"), "la cita excluida no choca");
+    }
+
+    @Test
+    void fechaIlegibleBloqueaTodoElHorarioDelMedico() {
+        IndiceHorarios indice = new IndiceHorarios();
+        indice.marcarFechaIlegible("80000000");
+
+        assertTrue(indice.hayConflicto("80000000", PRIMER_DIA.atTime(9, 0), null), "médico con fecha ilegible");
+        assertEquals(-1L, indice.ocupacionDelDia("80000000", PRIMER_DIA), "todas las franjas ocupadas");
+        assertFalse(indice.hayConflicto("80000001", PRIMER_DIA.atTime(9, 0), null), "otro médico no se afecta");
+    }
+
+    /**
+     * Hay conflicto si otra cita del médico empieza a menos de
+     * {@value IndiceHorarios#DURACION_CITA_MINUTOS} minutos de la fecha.
+     */
+    private static boolean hayConflicto(List<Horario> referencia, String medico, LocalDateTime fecha, String excluir) {
+        for (Horario h : referencia) {
+            long minutos = Math.abs(Duration.between(h.inicio, fecha).toMinutes());
+            if (h.medico.equals(medico) && minutos < IndiceHorarios.DURACION_CITA_MINUTOS
+                    && (excluir == null || !excluir.equals(h.id))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * El bit i está encendido si una cita nueva que empiece en la franja i
+     * choca con alguna cita del médico.
+     */
+    private static long ocupacion(List<Horario> referencia, String medico, LocalDate dia) {
+        long franjas = 0L;
+        for (int i = 0; i < IndiceHorarios.FRANJAS_POR_DIA; i++) {
+            LocalDateTime inicioFranja = dia.atStartOfDay().plusMinutes((long) i * IndiceHorarios.DURACION_CITA_MINUTOS);
+            if (hayConflicto(referencia, medico, inicioFranja, null)) {
+                franjas |= 1L << i;
+            }
+        }
+        return franjas;
+    }
+
+    /**
+     * Fechas en pasos de 10 minutos, para tener citas alineadas y no
+     * alineadas con las franjas, incluidas las que cruzan la medianoche.
+     */
+    private static LocalDateTime fechaAleatoria(Random random) {
+        return PRIMER_DIA.atStartOfDay().plusMinutes(10L * random.nextInt(DIAS * 24 * 6));
+    }
+
+    /**
+     * Pocos IDs posibles, para que se repitan y se excluyan a menudo.
+     */
+    private static String idAleatorio(Random random) {
+        return GeneradorIdCitas.formatear(1 + random.nextInt(40));
+    }
+
+    private static String elegir(Random random, String[] opciones) {
+        return opciones[random.nextInt(opciones.length)];
+    }
+}
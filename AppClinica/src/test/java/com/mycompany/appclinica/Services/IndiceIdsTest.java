@@ -0,0 +1,144 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.mycompany.appclinica.Models.Cita;
+import com.mycompany.appclinica.Models.EnumEspecialidad;
+import com.mycompany.appclinica.Models.EnumEstadoCita;
+import com.mycompany.appclinica.Models.Medico;
+import com.mycompany.appclinica.Models.Paciente;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara IndiceIds con recorrer en orden la lista de citas registradas, que
+ * es como se buscaban las citas antes del índice.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+class IndiceIdsTest {
+
+    private static final Paciente PACIENTE = new Paciente("1000000000", "Ana", "Pérez", "3000000000", LocalDate.of(1990, 1, 1));
+    private static final Medico MEDICO = new Medico("80000000", "Luis", "Gómez", EnumEspecialidad.MEDICINA_GENERAL, "3100000000");
+    private static final LocalDateTime FECHA = LocalDate.of(2030, 3, 10).atTime(9, 0);
+
+    // IDs escritos a mano que no siguen el formato canónico y van al mapa aparte
+    private static final String[] IDS_ESPECIALES = {
+        "CITA-01", "CITA-00042", "CITA-0042", "CITA-123456789", "CITA-1234567890",
+        "CITA-12a4", "CITA-", "OTRA-0007", "cita-0007"
+    };
+
+    @Test
+    void coincideConRecorrerLaLista() {
+        Random random = new Random(20300312L);
+        IndiceIds indice = new IndiceIds();
+        List<Cita> referencia = new ArrayList<>();
+
+        for (int paso = 0; paso < 20000; paso++) {
+            int operacion = random.nextInt(10);
+            if (referencia.isEmpty() || operacion < 6) {
+                Cita cita = nuevaCita(idAleatorio(random));
+                indice.agregar(cita);
+                referencia.add(cita);
+            } else if (operacion < 9) {
+                Cita quitada = referencia.remove(random.nextInt(referencia.size()));
+                indice.quitar(quitada);
+            } else {
+                // Una cita no registrada con un ID existente no debe quitar a la registrada
+                indice.quitar(nuevaCita(referencia.get(random.nextInt(referencia.size())).getId()));
+            }
+
+            for (int consulta = 0; consulta < 3; consulta++) {
+                String id = idAleatorio(random);
+                assertSame(buscar(referencia, id), indice.buscar(id), "buscar(" + id + ") en el paso " + paso);
+            }
+        }
+        for (Cita cita : referencia) {
+            assertSame(buscar(referencia, cita.getId()), indice.buscar(cita.getId()), "buscar(" + cita.getId() + ") al final");
+        }
+    }
+
+    @Test
+    void quitarDeUnaSecuenciaDeSondeoNoPierdeLasSiguientes() {
+        IndiceIds indice = new IndiceIds();
+        List<Cita> citas = new ArrayList<>();
+        // Números consecutivos: la tabla crece varias veces y se forman secuencias largas
+        for (int i = 0; i < 5000; i++) {
+            Cita cita = nuevaCita(GeneradorIdCitas.formatear(i));
+            indice.agregar(cita);
+            citas.add(cita);
+        }
+        for (int i = 0; i < citas.size(); i += 2) {
+            indice.quitar(citas.get(i));
+        }
+
+        for (int i = 0; i < citas.size(); i++) {
+            String id = citas.get(i).getId();
+            if (i % 2 == 0) {
+                assertNull(indice.buscar(id), "buscar(" + id + ") después de quitarla");
+            } else {
+                assertSame(citas.get(i), indice.buscar(id), "buscar(" + id + ")");
+            }
+        }
+        assertNull(indice.buscar(null), "buscar(null)");
+    }
+
+    @Test
+    void conIdRepetidoSeEncuentraLaPrimeraRegistrada() {
+        IndiceIds indice = new IndiceIds();
+        Cita primera = nuevaCita("CITA-0007");
+        Cita segunda = nuevaCita("CITA-0007");
+        Cita tercera = nuevaCita("CITA-0007");
+        Cita cuarta = nuevaCita("CITA-0007");
+        indice.agregar(primera);
+        indice.agregar(segunda);
+        indice.agregar(tercera);
+        indice.agregar(cuarta);
+
+        assertSame(primera, indice.buscar("CITA-0007"), "la primera registrada");
+        indice.quitar(tercera);
+        assertSame(primera, indice.buscar("CITA-0007"), "quitar una repetida no cambia la búsqueda");
+        indice.quitar(primera);
+        assertSame(segunda, indice.buscar("CITA-0007"), "la siguiente en orden pasa a ser la encontrada");
+        indice.quitar(segunda);
+        assertSame(cuarta, indice.buscar("CITA-0007"), "la última que queda");
+        indice.quitar(cuarta);
+        assertNull(indice.buscar("CITA-0007"), "sin citas con ese ID");
+    }
+
+    /**
+     * Primera cita registrada con el ID, igual que recorrer la lista en orden.
+     */
+    private static Cita buscar(List<Cita> referencia, String id) {
+        for (Cita cita : referencia) {
+            if (cita.getId().equals(id)) {
+                return cita;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Números de un rango mayor que la tabla inicial, para que crezca y los
+     * IDs se repitan, y de vez en cuando un ID escrito a mano.
+     */
+    private static String idAleatorio(Random random) {
+        if (random.nextInt(20) == 0) {
+            return IDS_ESPECIALES[random.nextInt(IDS_ESPECIALES.length)];
+        }
+        return GeneradorIdCitas.formatear(random.nextInt(4000));
+    }
+
+    private static Cita nuevaCita(String id) {
+        return new Cita(id, PACIENTE, MEDICO, "", EnumEstadoCita.PENDIENTE, FECHA);
+    }
+}
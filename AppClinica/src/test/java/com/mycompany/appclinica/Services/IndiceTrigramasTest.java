@@ -0,0 +1,85 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.appclinica.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara un IndiceTrigramas al que se le quitan y agregan elementos (y que
+ * por eso se compacta varias veces) con uno construido desde cero con los
+ * mismos elementos en el mismo orden.
+ *
+ * @author Juan Moscoso y Slleider Rojas
+ */
+class IndiceTrigramasTest {
+
+    private static final String[] NOMBRES = {"Ana", "Andrés", "Mariana", "Juan", "Julián", "Sofía", "Sebastián", "Ángela"};
+    private static final String[] APELLIDOS = {"Pérez", "Gómez", "Rojas", "Moscoso", "Peña", "Gutiérrez", "Ramírez"};
+    private static final String[] BUSQUEDAS = {"an", "ana", "and", "jua", "ez", "rez", "mos", "ped", "sof", "ia", "angela"};
+
+    /**
+     * Elemento indexado; se compara por identidad.
+     */
+    private static final class Persona {
+        final String nombre;
+        final String apellido;
+
+        Persona(String nombre, String apellido) {
+            this.nombre = nombre;
+            this.apellido = apellido;
+        }
+    }
+
+    private static final List<Function<Persona, String>> CAMPOS = List.of(p -> p.nombre, p -> p.apellido);
+
+    @Test
+    void quitarYCompactarDaLosMismosResultadosQueReconstruir() {
+        Random random = new Random(20300312L);
+        IndiceTrigramas<Persona> indice = new IndiceTrigramas<>(CAMPOS);
+        List<Persona> vivas = new ArrayList<>();
+
+        for (int paso = 0; paso < 4000; paso++) {
+            // Más bajas que altas a ratos, para que los huecos pasen de la mitad y se compacte
+            boolean agregar = vivas.isEmpty() || random.nextInt(100) < (paso % 1000 < 500 ? 70 : 30);
+            if (agregar) {
+                Persona p = new Persona(elegir(random, NOMBRES), elegir(random, APELLIDOS));
+                indice.agregar(p);
+                vivas.add(p);
+            } else {
+                indice.quitar(vivas.remove(random.nextInt(vivas.size())));
+            }
+
+            if (paso % 50 == 0) {
+                IndiceTrigramas<Persona> reconstruido = new IndiceTrigramas<>(CAMPOS);
+                for (Persona p : vivas) {
+                    reconstruido.agregar(p);
+                }
+                assertEquals(vivas.size(), indice.tamanio(), "tamaño en el paso " + paso);
+                for (String buscado : BUSQUEDAS) {
+                    assertMismos(reconstruido.buscar(buscado), indice.buscar(buscado),
+                            "buscar(" + buscado + ") en el paso " + paso);
+                }
+            }
+        }
+    }
+
+    private static void assertMismos(List<Persona> esperadas, List<Persona> obtenidas, String mensaje) {
+        assertEquals(esperadas.size(), obtenidas.size(), mensaje + ": cantidad");
+        for (int i = 0; i < esperadas.size(); i++) {
+            assertSame(esperadas.get(i), obtenidas.get(i), mensaje + ": posición " + i);
+        }
+    }
+
+    private static String elegir(Random random, String[] opciones) {
+        return opciones[random.nextInt(opciones.length)];
+    }
+}